@@ -7,6 +7,7 @@
 local_result_v2 * queryToBuffer(
         const std::string & queryStr,
         const std::string & output_format = "CSV",
+        const std::vector<std::string> & settings = {},
         const std::string & path = {},
         const std::string & udfPath = {})
 {
@@ -23,6 +24,12 @@ local_result_v2 * queryToBuffer(
         argv.push_back("--output-format=" + output_format);
     }
 
+    // Engine settings arrive as name=value pairs.
+    for (const auto & setting : settings)
+    {
+        argv.push_back("--" + setting);
+    }
+
     if (!path.empty())
     {
         argv.push_back("--path=" + path);
@@ -48,7 +55,7 @@ local_result_v2 * queryToBuffer(
 }
 
 
-JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *env, jclass clazz, jstring query) {
+JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *env, jclass clazz, jstring query, jstring format, jobjectArray settings) {
     // 1. Convert Java String to C++ string
 
     std::cout << "call func: ChdbJniUtil_executeQuery!" << std::endl;
@@ -59,11 +66,31 @@ JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *en
         return nullptr;
     }
 
+    const char *formatStr = env->GetStringUTFChars(format, nullptr);
+    if (formatStr == nullptr) {
+        std::cerr << "Error: Failed to convert Java string to C++ string" << std::endl;
+        env->ReleaseStringUTFChars(query, queryStr);
+        return nullptr;
+    }
+
+    std::vector<std::string> settingArgs;
+    jsize settingCount = settings == nullptr ? 0 : env->GetArrayLength(settings);
+    for (jsize i = 0; i < settingCount; i++) {
+        jstring setting = static_cast<jstring>(env->GetObjectArrayElement(settings, i));
+        const char *settingStr = env->GetStringUTFChars(setting, nullptr);
+        if (settingStr != nullptr) {
+            settingArgs.emplace_back(settingStr);
+            env->ReleaseStringUTFChars(setting, settingStr);
+        }
+        env->DeleteLocalRef(setting);
+    }
+
     // 2. Call the native query function
-    local_result_v2 *result = queryToBuffer(queryStr);
+    local_result_v2 *result = queryToBuffer(queryStr, formatStr, settingArgs);
 
    //  3. Release the Java string resources
     env->ReleaseStringUTFChars(query, queryStr);
+    env->ReleaseStringUTFChars(format, formatStr);
 
     // 4. Check if the result is null (indicates an error)
     if (result == nullptr) {
@@ -79,7 +106,7 @@ JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *en
         return nullptr;
     }
 
-    jmethodID constructor = env->GetMethodID(resultClass, "<init>", "(Ljava/nio/ByteBuffer;JJDLjava/lang/String;)V");
+    jmethodID constructor = env->GetMethodID(resultClass, "<init>", "(Ljava/nio/ByteBuffer;JJDLjava/lang/String;J)V");
     if (constructor == nullptr) {
         std::cerr << "Error: constructor is null" << std::endl;
         free_result_v2(result);  // Ensure to free the result even on error
@@ -97,17 +124,21 @@ JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *en
     // 7. Create the Java String for the error message, if present
     jstring errorMessage = result->error_message ? env->NewStringUTF(result->error_message) : nullptr;
 
-    // 8. Create a new Java object to hold the result
-    jobject resultObj = env->NewObject(resultClass, constructor, buffer, result->rows_read, result->bytes_read, result->elapsed, errorMessage);
+    // 8. Create a new Java object to hold the result. The direct buffer points into the native
+    //    result, so ownership moves to Java and is released through ChdbJniUtil.freeResult.
+    jobject resultObj = env->NewObject(resultClass, constructor, buffer, result->rows_read, result->bytes_read, result->elapsed, errorMessage, reinterpret_cast<jlong>(result));
     if (resultObj == nullptr) {
         std::cerr << "Error: Failed to create result object" << std::endl;
         free_result_v2(result);
         return nullptr;
     }
 
-    // 9. Free the native result structure
-    free_result_v2(result);
-
-    // 10. Return the Java object
+    // 9. Return the Java object
     return resultObj;
 }
+
+JNIEXPORT void JNICALL Java_org_chdb_jdbc_ChdbJniUtil_freeResult(JNIEnv *env, jclass clazz, jlong handle) {
+    if (handle != 0) {
+        free_result_v2(reinterpret_cast<local_result_v2 *>(handle));
+    }
+}
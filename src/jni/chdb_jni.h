@@ -7,7 +7,8 @@
 extern "C" {
 #endif
 
-JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *, jclass, jstring);
+JNIEXPORT jobject JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *, jclass, jstring, jstring, jobjectArray);
+JNIEXPORT void JNICALL Java_org_chdb_jdbc_ChdbJniUtil_freeResult(JNIEnv *, jclass, jlong);
 //JNIEXPORT jstring JNICALL Java_org_chdb_jdbc_ChdbJniUtil_executeQuery(JNIEnv *, jclass, jstring);
 
 #ifdef __cplusplus
@@ -0,0 +1,124 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+
+// Holds the result rather than just its buffer, so reads after the result is closed fail instead of touching freed
+// memory.
+final class BulkColumnReader implements ChdbBulkReader {
+  private final LocalResultV2 result;
+  private final ByteBuffer buf;
+  private final RowIndex rows;
+  private final int rowCount;
+  private final int[] field = new int[2];
+  private int position;
+
+  BulkColumnReader(LocalResultV2 result, ByteBuffer buf, RowIndex rows, int rowCount, int position) {
+    this.result = result;
+    this.buf = buf;
+    this.rows = rows;
+    this.rowCount = rowCount;
+    this.position = position;
+  }
+
+  @Override
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public int getPosition() {
+    return position;
+  }
+
+  @Override
+  public void setPosition(int row) throws SQLException {
+    if (row < 0 || row > rowCount) {
+      throw new SQLException("Row out of bounds: " + row);
+    }
+    position = row;
+  }
+
+  @Override
+  public int readLongs(int column, long[] dst, int off, int len) throws SQLException {
+    return readLongs(column, dst, null, off, len);
+  }
+
+  @Override
+  public int readLongs(int column, long[] dst, long[] nullBits, int off, int len) throws SQLException {
+    int count = prepare(column, dst.length, off, len);
+    for (int i = 0; i < count; i++) {
+      boolean isNull = locate(position + i, column);
+      dst[off + i] = isNull ? 0L : parseLong(column);
+      markNull(nullBits, off + i, isNull);
+    }
+    return count;
+  }
+
+  @Override
+  public int readDoubles(int column, double[] dst, int off, int len) throws SQLException {
+    return readDoubles(column, dst, null, off, len);
+  }
+
+  @Override
+  public int readDoubles(int column, double[] dst, long[] nullBits, int off, int len) throws SQLException {
+    int count = prepare(column, dst.length, off, len);
+    for (int i = 0; i < count; i++) {
+      boolean isNull = locate(position + i, column);
+      dst[off + i] = isNull ? 0d : parseDouble(column);
+      markNull(nullBits, off + i, isNull);
+    }
+    return count;
+  }
+
+  private int prepare(int column, int capacity, int off, int len) throws SQLException {
+    if (result.isClosed()) {
+      throw new SQLException("Result set is closed");
+    }
+    if (column < 1) {
+      throw new SQLException("Column index out of bounds: " + column);
+    }
+    if (off < 0 || len < 0 || off + len > capacity) {
+      throw new SQLException("Invalid array range: off=" + off + ", len=" + len);
+    }
+    return Math.min(len, rowCount - position);
+  }
+
+  // Locates the cell of row and column in field, returning whether it holds NULL.
+  private boolean locate(int row, int column) throws SQLException {
+    if (!CsvScanner.locateField(buf, rows.start(row), rows.end(row), column - 1, field)) {
+      throw new SQLException("Column index out of bounds: " + column);
+    }
+    return CsvScanner.isNull(buf, field[0], field[1]);
+  }
+
+  private long parseLong(int column) throws SQLException {
+    try {
+      return CsvScanner.parseLong(buf, field[0], field[1]);
+    } catch (NumberFormatException e) {
+      throw new SQLException("Column " + column + " is not a 64-bit integer: " + cell(), e);
+    }
+  }
+
+  private double parseDouble(int column) throws SQLException {
+    try {
+      return CsvScanner.parseDouble(buf, field[0], field[1]);
+    } catch (NumberFormatException e) {
+      throw new SQLException("Column " + column + " is not a number: " + cell(), e);
+    }
+  }
+
+  private String cell() {
+    return CsvScanner.decodeField(buf, field[0], field[1]);
+  }
+
+  private static void markNull(long[] nullBits, int bit, boolean isNull) {
+    if (nullBits != null) {
+      if (isNull) {
+        nullBits[bit >>> 6] |= 1L << bit;
+      } else {
+        nullBits[bit >>> 6] &= ~(1L << bit);
+      }
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package org.chdb.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Reads the bytes of one cell straight from the result buffer, removing the enclosing quotes and doubled quote
+ * escapes of its CSV field as it goes, so large cells can be streamed without being copied into a String or
+ * array first. The stream fails once the result set it was read from is closed.
+ */
+final class CellInputStream extends InputStream {
+  private final LocalResultV2 owner;
+  private final ByteBuffer buf;
+  private final int end;
+  private final boolean quoted;
+  private int position;
+  private int mark;
+
+  CellInputStream(LocalResultV2 owner, ByteBuffer buf, int start, int end) {
+    this.owner = owner;
+    this.buf = buf;
+    this.quoted = end - start >= 2 && buf.get(start) == CsvScanner.QUOTE && buf.get(end - 1) == CsvScanner.QUOTE;
+    this.position = quoted ? start + 1 : start;
+    this.end = quoted ? end - 1 : end;
+    this.mark = position;
+  }
+
+  private void checkOpen() throws IOException {
+    if (owner != null && owner.isClosed()) {
+      throw new IOException("The result set holding this cell is closed");
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    checkOpen();
+    if (position >= end) {
+      return -1;
+    }
+    byte b = buf.get(position++);
+    if (quoted && b == CsvScanner.QUOTE) {
+      position++;
+    }
+    return b & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, bytes.length);
+    checkOpen();
+    if (len == 0) {
+      return 0;
+    }
+    if (position >= end) {
+      return -1;
+    }
+    int n = 0;
+    while (n < len && position < end) {
+      // Copy the run up to the next escaped quote in bulk, then emit the quote itself.
+      int run = quoted ? CsvScanner.KERNEL.indexOf(buf, position, end, CsvScanner.QUOTE) : end;
+      if (run == position) {
+        bytes[off + n++] = CsvScanner.QUOTE;
+        position += 2;
+        continue;
+      }
+      int count = Math.min(len - n, run - position);
+      buf.get(position, bytes, off + n, count);
+      position += count;
+      n += count;
+    }
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    checkOpen();
+    if (!quoted) {
+      int skipped = (int) Math.max(0, Math.min(n, end - position));
+      position += skipped;
+      return skipped;
+    }
+    long skipped = 0;
+    while (skipped < n && read() >= 0) {
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return Math.max(0, end - position);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readLimit) {
+    mark = position;
+  }
+
+  @Override
+  public void reset() {
+    position = mark;
+  }
+}
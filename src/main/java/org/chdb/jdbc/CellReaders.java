@@ -0,0 +1,212 @@
+package org.chdb.jdbc;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Struct;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed cell reads shared by {@link ChdbResultSet#getObject(int, Class)} and the compiled row mappers. Each reader
+ * is a static method {@code (ChdbResultSet, int) -> T}, so mappers can bind them without boxing primitives.
+ */
+final class CellReaders {
+  private static final Map<Class<?>, MethodHandle> HANDLES = new HashMap<>();
+
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      for (Map.Entry<Class<?>, String> reader : Map.ofEntries(
+          Map.entry(String.class, "readString"),
+          Map.entry(Object.class, "readString"),
+          Map.entry(long.class, "readLong"),
+          Map.entry(Long.class, "readBoxedLong"),
+          Map.entry(int.class, "readInt"),
+          Map.entry(Integer.class, "readBoxedInt"),
+          Map.entry(short.class, "readShort"),
+          Map.entry(Short.class, "readBoxedShort"),
+          Map.entry(byte.class, "readByte"),
+          Map.entry(Byte.class, "readBoxedByte"),
+          Map.entry(double.class, "readDouble"),
+          Map.entry(Double.class, "readBoxedDouble"),
+          Map.entry(float.class, "readFloat"),
+          Map.entry(Float.class, "readBoxedFloat"),
+          Map.entry(boolean.class, "readBoolean"),
+          Map.entry(Boolean.class, "readBoxedBoolean"),
+          Map.entry(BigDecimal.class, "readBigDecimal"),
+          Map.entry(LocalDate.class, "readLocalDate"),
+          Map.entry(LocalDateTime.class, "readLocalDateTime"),
+          Map.entry(LocalTime.class, "readLocalTime"),
+          Map.entry(Instant.class, "readInstant"),
+          Map.entry(Date.class, "readDate"),
+          Map.entry(Time.class, "readTime"),
+          Map.entry(Timestamp.class, "readTimestamp"),
+          Map.entry(Array.class, "readArray"),
+          Map.entry(Struct.class, "readStruct"),
+          Map.entry(Map.class, "readMap"),
+          Map.entry(byte[].class, "readBytes"),
+          Map.entry(InputStream.class, "readBinaryStream")).entrySet()) {
+        Class<?> returnType = reader.getKey() == Object.class ? String.class : reader.getKey();
+        HANDLES.put(reader.getKey(), lookup.findStatic(CellReaders.class, reader.getValue(),
+            MethodType.methodType(returnType, ChdbResultSet.class, int.class)));
+      }
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private CellReaders() {
+  }
+
+  /** Returns a {@code (ChdbResultSet, int) -> type} handle, or null if cells cannot be read as {@code type}. */
+  static MethodHandle handle(Class<?> type) {
+    return HANDLES.get(type);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <T> T read(ChdbResultSet rs, int column, Class<T> type) throws SQLException {
+    MethodHandle reader = HANDLES.get(type);
+    if (reader == null) {
+      throw new SQLException("Cannot convert column " + column + " to " + type.getName());
+    }
+    try {
+      Object value = reader.invoke(rs, column);
+      return type.isPrimitive() ? (T) value : type.cast(value);
+    } catch (SQLException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new SQLException(t);
+    }
+  }
+
+  static String readString(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getString(column);
+  }
+
+  static long readLong(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getLong(column);
+  }
+
+  static Long readBoxedLong(ChdbResultSet rs, int column) throws SQLException {
+    long value = rs.getLong(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static int readInt(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getInt(column);
+  }
+
+  static Integer readBoxedInt(ChdbResultSet rs, int column) throws SQLException {
+    int value = rs.getInt(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static short readShort(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getShort(column);
+  }
+
+  static Short readBoxedShort(ChdbResultSet rs, int column) throws SQLException {
+    short value = rs.getShort(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static byte readByte(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getByte(column);
+  }
+
+  static Byte readBoxedByte(ChdbResultSet rs, int column) throws SQLException {
+    byte value = rs.getByte(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static double readDouble(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getDouble(column);
+  }
+
+  static Double readBoxedDouble(ChdbResultSet rs, int column) throws SQLException {
+    double value = rs.getDouble(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static float readFloat(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getFloat(column);
+  }
+
+  static Float readBoxedFloat(ChdbResultSet rs, int column) throws SQLException {
+    float value = rs.getFloat(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static boolean readBoolean(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getBoolean(column);
+  }
+
+  static Boolean readBoxedBoolean(ChdbResultSet rs, int column) throws SQLException {
+    boolean value = rs.getBoolean(column);
+    return rs.wasNull() ? null : value;
+  }
+
+  static BigDecimal readBigDecimal(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getBigDecimal(column);
+  }
+
+  static LocalDate readLocalDate(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getLocalDate(column);
+  }
+
+  static LocalDateTime readLocalDateTime(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getLocalDateTime(column);
+  }
+
+  static LocalTime readLocalTime(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getLocalTime(column);
+  }
+
+  static Instant readInstant(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getInstant(column);
+  }
+
+  static Date readDate(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getDate(column);
+  }
+
+  static Time readTime(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getTime(column);
+  }
+
+  static Timestamp readTimestamp(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getTimestamp(column);
+  }
+
+  static Array readArray(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getArray(column);
+  }
+
+  static Struct readStruct(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getStruct(column);
+  }
+
+  static Map<Object, Object> readMap(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getMap(column);
+  }
+
+  static byte[] readBytes(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getBytes(column);
+  }
+
+  static InputStream readBinaryStream(ChdbResultSet rs, int column) throws SQLException {
+    return rs.getBinaryStream(column);
+  }
+}
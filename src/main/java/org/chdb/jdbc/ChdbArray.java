@@ -0,0 +1,181 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+
+/**
+ * An Array cell, read from its text in the result buffer. Elements are only parsed by {@link #getArray()}, which
+ * returns a {@code long[]} for integer elements that fit a signed long and a {@code double[]} for floating point
+ * ones, parsing the digits in place without boxing; other elements, such as {@code UInt64} ones as
+ * {@code BigInteger}, and arrays holding nulls, come back as an {@code Object[]}. The value
+ * is readable while its result set is open.
+ */
+final class ChdbArray implements Array {
+  private final LocalResultV2 owner;
+  private final ByteBuffer buf;
+  private final int start;
+  private final int end;
+  private final String elementType;
+  private int[] elements;
+
+  ChdbArray(LocalResultV2 owner, ByteBuffer buf, int start, int end, String elementType) {
+    this.owner = owner;
+    this.buf = buf;
+    this.start = start;
+    this.end = end;
+    this.elementType = elementType;
+  }
+
+  private int[] elements() {
+    if (elements == null) {
+      elements = NestedValues.split(buf, start, end);
+    }
+    return elements;
+  }
+
+  @Override
+  public String getBaseTypeName() throws SQLException {
+    return elementType == null ? "String" : elementType;
+  }
+
+  @Override
+  public int getBaseType() throws SQLException {
+    String base = NestedValues.unwrap(elementType);
+    if (base == null) {
+      return Types.OTHER;
+    }
+    if (NestedValues.isInteger(base)) {
+      return NestedValues.fitsLong(base) ? Types.BIGINT : Types.NUMERIC;
+    }
+    if (NestedValues.isFloat(base)) {
+      return Types.DOUBLE;
+    }
+    if (base.startsWith("Decimal")) {
+      return Types.DECIMAL;
+    }
+    if (base.equals("Bool")) {
+      return Types.BOOLEAN;
+    }
+    if (base.startsWith("Array(")) {
+      return Types.ARRAY;
+    }
+    if (base.startsWith("Tuple(")) {
+      return Types.STRUCT;
+    }
+    return Types.VARCHAR;
+  }
+
+  @Override
+  public Object getArray() throws SQLException {
+    NestedValues.checkOpen(owner);
+    int[] bounds = elements();
+    int count = bounds.length / 2;
+    String base = elementType == null ? inferredType(bounds) : elementType;
+    try {
+      if (NestedValues.fitsLong(base)) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+          values[i] = CsvScanner.parseLong(buf, bounds[i << 1], bounds[(i << 1) + 1]);
+        }
+        return values;
+      }
+      if (NestedValues.isFloat(base)) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+          values[i] = CsvScanner.parseDouble(buf, bounds[i << 1], bounds[(i << 1) + 1]);
+        }
+        return values;
+      }
+      Object[] values = new Object[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = NestedValues.decode(owner, buf, bounds[i << 1], bounds[(i << 1) + 1], elementType);
+      }
+      return values;
+    } catch (NumberFormatException e) {
+      throw new SQLException("Malformed " + getBaseTypeName() + " array element", e);
+    }
+  }
+
+  // Without a typed header, arrays of plain numbers still decode to primitives.
+  private String inferredType(int[] bounds) {
+    boolean integral = true;
+    for (int i = 0; i < bounds.length; i += 2) {
+      if (bounds[i] == bounds[i + 1]) {
+        return null;
+      }
+      for (int j = bounds[i]; j < bounds[i + 1]; j++) {
+        byte b = buf.get(j);
+        if (b == '.' || b == 'e' || b == 'E') {
+          integral = false;
+        } else if ((b < '0' || b > '9') && !(j == bounds[i] && b == '-')) {
+          return null;
+        }
+      }
+    }
+    return bounds.length == 0 ? null : integral ? "Int64" : "Float64";
+  }
+
+  @Override
+  public Object getArray(Map<String, Class<?>> map) throws SQLException {
+    if (map != null && !map.isEmpty()) {
+      throw new SQLException("Custom type maps are not supported");
+    }
+    return getArray();
+  }
+
+  @Override
+  public Object getArray(long index, int count) throws SQLException {
+    Object values = getArray();
+    int length = java.lang.reflect.Array.getLength(values);
+    if (index < 1 || count < 0 || index - 1 + count > length) {
+      throw new SQLException("Array slice out of bounds: " + index + ", " + count);
+    }
+    Object slice = java.lang.reflect.Array.newInstance(values.getClass().getComponentType(), count);
+    System.arraycopy(values, (int) index - 1, slice, 0, count);
+    return slice;
+  }
+
+  @Override
+  public Object getArray(long index, int count, Map<String, Class<?>> map) throws SQLException {
+    if (map != null && !map.isEmpty()) {
+      throw new SQLException("Custom type maps are not supported");
+    }
+    return getArray(index, count);
+  }
+
+  @Override
+  public ResultSet getResultSet() throws SQLException {
+    throw new SQLException("This method has not been implemented yet.");
+  }
+
+  @Override
+  public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLException {
+    throw new SQLException("This method has not been implemented yet.");
+  }
+
+  @Override
+  public ResultSet getResultSet(long index, int count) throws SQLException {
+    throw new SQLException("This method has not been implemented yet.");
+  }
+
+  @Override
+  public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map) throws SQLException {
+    throw new SQLException("This method has not been implemented yet.");
+  }
+
+  @Override
+  public void free() {
+  }
+
+  @Override
+  public String toString() {
+    byte[] text = new byte[end - start];
+    buf.get(start, text);
+    return new String(text, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,33 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Column-at-a-time access to a result, obtained through {@code resultSet.unwrap(ChdbBulkReader.class)}. Each read
+ * fills a caller-owned array straight from the result buffer for up to {@code len} rows starting at the reader's
+ * position, and returns the number of rows read. Reads do not move the position, so several columns can be read
+ * for the same rows before calling {@link #setPosition(int)}. Column indexes are 1-based as in JDBC; rows are
+ * 0-based.
+ */
+public interface ChdbBulkReader {
+  int getRowCount() throws SQLException;
+
+  int getPosition();
+
+  void setPosition(int row) throws SQLException;
+
+  /** Reads integers; NULL cells are read as 0. */
+  int readLongs(int column, long[] dst, int off, int len) throws SQLException;
+
+  /**
+   * Reads integers and sets bit {@code off + i} of {@code nullBits} for every NULL cell, clearing it otherwise.
+   * Bit {@code n} lives in {@code nullBits[n >>> 6]} at position {@code n & 63}.
+   */
+  int readLongs(int column, long[] dst, long[] nullBits, int off, int len) throws SQLException;
+
+  /** Reads floating point values; NULL cells are read as 0. */
+  int readDoubles(int column, double[] dst, int off, int len) throws SQLException;
+
+  /** Reads floating point values, recording NULL cells in {@code nullBits} as for longs. */
+  int readDoubles(int column, double[] dst, long[] nullBits, int off, int len) throws SQLException;
+}
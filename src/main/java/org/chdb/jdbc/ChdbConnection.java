@@ -1,22 +1,86 @@
 package org.chdb.jdbc;
 
 import java.sql.*;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 public class ChdbConnection implements Connection {
   private String url;
   private Properties info;
-
-  public ChdbConnection(String url, Properties info) {
+  private final Map<String, String> settings = new LinkedHashMap<>();
+  private final Properties clientInfo = new Properties();
+  private final Set<ChdbStatement> statements = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed;
+  private volatile int networkTimeout;
+  private final QueryContext context;
+  private final boolean keysetPaging;
+
+  public ChdbConnection(String url, Properties info) throws SQLException {
     this.url = url;
     this.info = info;
+    this.context = QueryContext.forConnection(info);
+    this.keysetPaging = info != null && Boolean.parseBoolean(info.getProperty(KeysetQuery.ENABLED));
+    settings.putAll(EngineSettings.fromProperties(info));
+  }
+
+  /** Sets an engine setting, such as {@code max_threads}, for every later query of this connection. */
+  public synchronized void setSetting(String name, String value) throws SQLException {
+    if (!EngineSettings.isSettingName(name)) {
+      throw new SQLException("Invalid setting name: " + name);
+    }
+    if (value == null) {
+      settings.remove(name);
+    } else {
+      settings.put(name, value);
+    }
+  }
+
+  synchronized void applySettings(Map<String, String> assigned) {
+    settings.putAll(assigned);
+  }
+
+  // The settings passed to a native call: those of the connection, then the statement's own overrides.
+  synchronized String[] settings(Map<String, String> overrides) {
+    return EngineSettings.toArguments(settings, overrides);
   }
 
   @Override
   public Statement createStatement() throws SQLException {
-    return new ChdbStatement(this);
+    return open(new ChdbStatement(this));
+  }
+
+  private ChdbStatement open(ChdbStatement statement) throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection is closed");
+    }
+    statements.add(statement);
+    return statement;
+  }
+
+  QueryContext context() {
+    return context;
+  }
+
+  // Set through chdb.keysetPaging, as paging skips rows unless the ORDER BY columns of a query are unique.
+  boolean isKeysetPaging() {
+    return keysetPaging;
+  }
+
+  void closed(ChdbStatement statement) {
+    statements.remove(statement);
+  }
+
+  /**
+   * Returns a coalescer for the single-parameter lookup {@code sql}, such as {@code SELECT ... WHERE id = ?}, that
+   * batches the lookups submitted within {@code windowMicros} microseconds, up to {@code maxBatch} keys, into one
+   * query.
+   */
+  public ChdbQueryCoalescer coalesce(String sql, long windowMicros, int maxBatch) throws SQLException {
+    return new ChdbQueryCoalescer(sql, windowMicros, maxBatch, settings(Map.of()), context);
   }
 
   @Override
@@ -56,12 +120,16 @@ public class ChdbConnection implements Connection {
 
   @Override
   public void close() throws SQLException {
-
+    closed = true;
+    for (ChdbStatement statement : statements) {
+      statement.close();
+    }
+    context.close();
   }
 
   @Override
   public boolean isClosed() throws SQLException {
-    return false;
+    return closed;
   }
 
   @Override
@@ -110,8 +178,8 @@ public class ChdbConnection implements Connection {
   }
 
   @Override
-  public Statement createStatement(int i, int i1) throws SQLException {
-    return null;
+  public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+    return open(new ChdbStatement(this, resultSetType, resultSetConcurrency));
   }
 
   @Override
@@ -165,8 +233,9 @@ public class ChdbConnection implements Connection {
   }
 
   @Override
-  public Statement createStatement(int i, int i1, int i2) throws SQLException {
-    return null;
+  public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability)
+      throws SQLException {
+    return open(new ChdbStatement(this, resultSetType, resultSetConcurrency));
   }
 
   @Override
@@ -220,23 +289,41 @@ public class ChdbConnection implements Connection {
   }
 
   @Override
-  public void setClientInfo(String s, String s1) throws SQLClientInfoException {
-
+  public void setClientInfo(String name, String value) throws SQLClientInfoException {
+    synchronized (this) {
+      if (value == null) {
+        clientInfo.remove(name);
+      } else {
+        clientInfo.setProperty(name, value);
+      }
+      // The engine records log_comment with each query, which makes the application visible in its query log.
+      if ("ApplicationName".equals(name)) {
+        if (value == null) {
+          settings.remove("log_comment");
+        } else {
+          settings.put("log_comment", value);
+        }
+      }
+    }
   }
 
   @Override
   public void setClientInfo(Properties properties) throws SQLClientInfoException {
-
+    for (String name : properties.stringPropertyNames()) {
+      setClientInfo(name, properties.getProperty(name));
+    }
   }
 
   @Override
-  public String getClientInfo(String s) throws SQLException {
-    return "";
+  public synchronized String getClientInfo(String name) throws SQLException {
+    return clientInfo.getProperty(name);
   }
 
   @Override
-  public Properties getClientInfo() throws SQLException {
-    return null;
+  public synchronized Properties getClientInfo() throws SQLException {
+    Properties copy = new Properties();
+    copy.putAll(clientInfo);
+    return copy;
   }
 
   @Override
@@ -261,17 +348,35 @@ public class ChdbConnection implements Connection {
 
   @Override
   public void abort(Executor executor) throws SQLException {
-
-  }
-
+    if (executor == null) {
+      throw new SQLException("Executor must not be null");
+    }
+    closed = true;
+    // Waiting calls fail at once and the native results they leave behind are freed as they arrive. Result sets
+    // already open may still be read by their own threads, so they are freed when those threads close them.
+    executor.execute(() -> {
+      for (ChdbStatement statement : statements) {
+        try {
+          statement.cancel();
+        } catch (SQLException ignored) {
+          // Aborting carries on with the remaining statements.
+        }
+      }
+    });
+  }
+
+  /** Caps how long any statement of this connection waits for a native call, in milliseconds; 0 waits forever. */
   @Override
   public void setNetworkTimeout(Executor executor, int i) throws SQLException {
-
+    if (i < 0) {
+      throw new SQLException("Network timeout must not be negative: " + i);
+    }
+    networkTimeout = i;
   }
 
   @Override
   public int getNetworkTimeout() throws SQLException {
-    return 0;
+    return networkTimeout;
   }
 
   @Override
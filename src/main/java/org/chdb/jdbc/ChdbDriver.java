@@ -1,10 +1,35 @@
 package org.chdb.jdbc;
 
 import java.sql.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ChdbDriver implements Driver {
+  /** Connection property that starts a warm-up when the connection is opened. */
+  public static final String WARM_UP = "chdb.warmUp";
+  /** Priming queries run by a warm-up, separated by semicolons. */
+  public static final String WARM_UP_QUERIES = "chdb.warmUp.queries";
+
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final ExecutorService WARM_UP_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "chdb-warm-up");
+    thread.setDaemon(true);
+    return thread;
+  });
+  // Only read and written on the warm-up thread.
+  private static boolean engineStarted;
+  // Warm-ups started by connect, by priming queries and engine settings, so each distinct set runs once.
+  private static final Map<List<Object>, CompletableFuture<WarmUpReport>> WARM_UPS = new ConcurrentHashMap<>();
+
   static {
     try {
       DriverManager.registerDriver(new ChdbDriver());
@@ -18,9 +43,92 @@ public class ChdbDriver implements Driver {
     if (!acceptsURL(url)) {
       throw new SQLException(("Invalid URL: " + url + ". URL must start with jdbc:chdb"));
     }
+    if (info != null && Boolean.parseBoolean(info.getProperty(WARM_UP))) {
+      List<Object> key = List.of(info.getProperty(WARM_UP_QUERIES, ""), EngineSettings.fromProperties(info));
+      CompletableFuture<WarmUpReport> warmUp = WARM_UPS.computeIfAbsent(key, k -> warmUp(info));
+      // A failed warm-up is tried again by the next connection.
+      warmUp.whenComplete((report, failure) -> {
+        if (failure != null) {
+          WARM_UPS.remove(key, warmUp);
+        }
+      });
+    }
     return new ChdbConnection(url, info);
   }
 
+  /**
+   * Loads the native library and starts the engine on a background thread, so the first query does not pay for
+   * them, then runs the priming queries of {@link #WARM_UP_QUERIES}, such as schema or file metadata reads, with
+   * the engine settings among {@code options}. The future completes once the driver is ready, even if priming
+   * queries failed; they are counted and logged.
+   */
+  public static CompletableFuture<WarmUpReport> warmUp(Properties options) {
+    Properties copy = new Properties();
+    if (options != null) {
+      copy.putAll(options);
+    }
+    return CompletableFuture.supplyAsync(() -> runWarmUp(copy), WARM_UP_EXECUTOR);
+  }
+
+  // Warms up the engine that connections with these options use: this process's, or their pool of workers.
+  private static WarmUpReport runWarmUp(Properties options) {
+    Duration libraryLoad = Duration.ZERO;
+    Duration engineStart = Duration.ZERO;
+    long start = System.nanoTime();
+    QueryContext context;
+    String[] settings;
+    try {
+      context = QueryContext.forConnection(options);
+      settings = EngineSettings.toArguments(EngineSettings.fromProperties(options), Map.of());
+    } catch (SQLException e) {
+      throw new CompletionException(e);
+    }
+    try {
+      if (!context.isInProcess()) {
+        // Creating the pool started its workers.
+        engineStart = Duration.ofNanos(System.nanoTime() - start);
+      } else if (!engineStarted) {
+        start = System.nanoTime();
+        try {
+          Class.forName(ChdbJniUtil.class.getName(), true, ChdbDriver.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+          throw new IllegalStateException(e);
+        }
+        libraryLoad = Duration.ofNanos(System.nanoTime() - start);
+        start = System.nanoTime();
+        // The first call initializes the engine, whatever the query.
+        LocalResultV2 first = context.execute("SELECT 1", "CSV", new String[0]);
+        if (first != null) {
+          first.close();
+        }
+        engineStart = Duration.ofNanos(System.nanoTime() - start);
+        engineStarted = true;
+      }
+    } catch (SQLException e) {
+      context.close();
+      throw new CompletionException(e);
+    }
+    start = System.nanoTime();
+    int failed = 0;
+    try {
+      for (String query : SqlScript.split(options.getProperty(WARM_UP_QUERIES, ""))) {
+        try {
+          ChdbStatement.query(query, settings, context).close();
+        } catch (SQLException e) {
+          failed++;
+          LOG.log(Level.WARNING, "Priming query failed: " + query, e);
+        }
+      }
+    } finally {
+      context.close();
+    }
+    WarmUpReport report = new WarmUpReport(libraryLoad, engineStart, Duration.ofNanos(System.nanoTime() - start),
+        failed);
+    LOG.info("chDB ready in " + report.timeToReady().toMillis() + " ms (library " + libraryLoad.toMillis()
+        + " ms, engine " + engineStart.toMillis() + " ms, priming " + report.priming().toMillis() + " ms)");
+    return report;
+  }
+
   @Override
   public boolean acceptsURL(String url) throws SQLException {
     return url != null && url.startsWith("jdbc:chdb");
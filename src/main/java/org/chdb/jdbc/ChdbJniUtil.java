@@ -2,12 +2,23 @@ package org.chdb.jdbc;
 
 public class ChdbJniUtil {
   static {
-    System.loadLibrary("chdbjni");
+    NativeLoader.load();
   }
 
-  public static native LocalResultV2 executeQuery(String query);
+  public static LocalResultV2 executeQuery(String query) {
+    return executeQuery(query, "CSV");
+  }
+
+  public static LocalResultV2 executeQuery(String query, String format) {
+    return executeQuery(query, format, new String[0]);
+  }
+
+  // settings holds name=value pairs, passed to the engine as --name=value arguments.
+  public static native LocalResultV2 executeQuery(String query, String format, String[] settings);
 //  public static native String executeQuery(String query);
 
+  static native void freeResult(long handle);
+
 //  public static void main(String[] args) {
 //    String query = "SELECT 1";
 //    System.out.println(executeQuery(query));
@@ -0,0 +1,34 @@
+package org.chdb.jdbc;
+
+/**
+ * Native memory held by query results, for the whole driver ({@code org.chdb.jdbc:type=Memory}) or one connection
+ * ({@code org.chdb.jdbc:type=Memory,connection=N}). Results live in engine memory outside the Java heap, so heap
+ * monitoring does not see them.
+ */
+public interface ChdbMemoryMXBean {
+  /** Bytes of native results that are open. */
+  long getLiveBytes();
+
+  long getPeakBytes();
+
+  int getLiveResults();
+
+  long getTotalResults();
+
+  /** Bytes of open results above which new queries are held back; 0 for no budget. */
+  long getBudget();
+
+  void setBudget(long budget);
+
+  /** {@code block} to make new queries wait for results to be closed, or {@code reject} to fail them. */
+  String getPolicy();
+
+  void setPolicy(String policy);
+
+  long getBlockedQueries();
+
+  long getRejectedQueries();
+
+  /** Results that were garbage collected without being closed. */
+  long getLeakedResults();
+}
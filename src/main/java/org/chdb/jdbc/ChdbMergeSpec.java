@@ -0,0 +1,488 @@
+package org.chdb.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * How {@link ChdbStatement#executePartitioned} combines the results of the partitions of a query. The rows of each
+ * partition are either appended in partition order ({@link #concat}), merged on the ORDER BY columns every
+ * partition is already sorted by ({@link #orderBy}), or re-aggregated per group ({@link #groupBy}) from the
+ * partial {@code sum}, {@code count}, {@code min} and {@code max} columns of each partition. Aggregates that do
+ * not decompose this way, such as {@code avg} or {@code uniq}, have to be returned as their parts instead. Merged
+ * sums take the wider type the engine gives {@code sum}, such as {@code UInt64} for a {@code UInt8} column.
+ */
+public final class ChdbMergeSpec {
+  private enum Mode { CONCAT, ORDER_BY, GROUP_BY }
+
+  private enum Merge { SUM, MIN, MAX }
+
+  // Types whose cells value() compares the way the engine orders them, and types that can be summed.
+  private static final Pattern ORDERABLE = Pattern.compile("U?Int\\d+|Float\\d+|Decimal.*|Bool|String"
+      + "|FixedString\\(\\d+\\)|Date(32)?|DateTime(64)?(\\(.*\\))?|Enum(8|16)\\(.*\\)|IPv4|IPv6");
+  private static final Pattern SUMMABLE = Pattern.compile("U?Int\\d+|Float\\d+|Decimal.*");
+  private static final Pattern DECIMAL = Pattern.compile("Decimal(\\d*)\\((\\d+)(?:,\\s*(\\d+))?\\)");
+  private static final Pattern ENUM_VALUE = Pattern.compile("'((?:[^'\\\\]|\\\\.)*)'\\s*=\\s*(-?\\d+)");
+
+  private final Mode mode;
+  private final String[] keys;
+  private final boolean[] descending;
+  private final Map<String, Merge> aggregates;
+
+  private ChdbMergeSpec(Mode mode, String[] keys, boolean[] descending, Map<String, Merge> aggregates) {
+    this.mode = mode;
+    this.keys = keys;
+    this.descending = descending;
+    this.aggregates = aggregates;
+  }
+
+  /** Appends the rows of the partitions in the order the partitions were given. */
+  public static ChdbMergeSpec concat() {
+    return new ChdbMergeSpec(Mode.CONCAT, new String[0], new boolean[0], Map.of());
+  }
+
+  /**
+   * Merges partitions sorted by {@code columns}, each a column name optionally followed by {@code DESC}. As in
+   * the engine, nulls sort last in either direction.
+   */
+  public static ChdbMergeSpec orderBy(String... columns) {
+    String[] keys = new String[columns.length];
+    boolean[] descending = new boolean[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      String[] words = columns[i].trim().split("\\s+");
+      String direction = words.length > 1 ? words[1].toUpperCase(Locale.ROOT) : "ASC";
+      if (words.length > 2 || !direction.equals("ASC") && !direction.equals("DESC")) {
+        throw new IllegalArgumentException("Order column must be a name, optionally followed by ASC or DESC: "
+            + columns[i]);
+      }
+      keys[i] = words[0];
+      descending[i] = direction.equals("DESC");
+    }
+    return new ChdbMergeSpec(Mode.ORDER_BY, keys, descending, Map.of());
+  }
+
+  /**
+   * Re-aggregates the rows of all partitions per distinct value of {@code keys}. Every other column must be
+   * declared with {@link #sum}, {@link #count}, {@link #min} or {@link #max}. Groups come out in the order they
+   * are first seen.
+   */
+  public static ChdbMergeSpec groupBy(String... keys) {
+    return new ChdbMergeSpec(Mode.GROUP_BY, keys.clone(), new boolean[keys.length], Map.of());
+  }
+
+  /** Declares {@code column} as a partial sum, merged by adding it up. */
+  public ChdbMergeSpec sum(String column) {
+    return with(column, Merge.SUM);
+  }
+
+  /** Declares {@code column} as a partial count, merged by adding it up. */
+  public ChdbMergeSpec count(String column) {
+    return with(column, Merge.SUM);
+  }
+
+  public ChdbMergeSpec min(String column) {
+    return with(column, Merge.MIN);
+  }
+
+  public ChdbMergeSpec max(String column) {
+    return with(column, Merge.MAX);
+  }
+
+  private ChdbMergeSpec with(String column, Merge merge) {
+    if (mode != Mode.GROUP_BY) {
+      throw new IllegalStateException("Aggregate columns only apply to groupBy");
+    }
+    Map<String, Merge> merged = new LinkedHashMap<>(aggregates);
+    merged.put(column, merge);
+    return new ChdbMergeSpec(mode, keys, descending, merged);
+  }
+
+  /** Combines partition results in CSVWithNamesAndTypes into one, copied to the heap. */
+  ByteBuffer merge(List<ByteBuffer> results) throws SQLException {
+    List<Part> parts = new ArrayList<>();
+    for (ByteBuffer buf : results) {
+      parts.add(new Part(buf));
+    }
+    Part first = parts.get(0);
+    for (Part part : parts) {
+      if (!Arrays.equals(part.names, first.names) || !Arrays.equals(part.types, first.types)) {
+        throw new SQLException("Partitions returned different columns: " + Arrays.toString(first.names) + " and "
+            + Arrays.toString(part.names));
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    switch (mode) {
+      case CONCAT:
+        out.writeBytes(first.bytes(first.buf.position(), first.rowsStart));
+        for (Part part : parts) {
+          for (int row = 0; row < part.rows.rowCount(); row++) {
+            part.copyRow(row, out);
+          }
+        }
+        break;
+      case ORDER_BY:
+        int[] columns = first.columns(keys);
+        for (int column : columns) {
+          first.checkType(column, ORDERABLE, "be an order key");
+        }
+        out.writeBytes(first.bytes(first.buf.position(), first.rowsStart));
+        mergeSorted(parts, columns, out);
+        break;
+      default:
+        aggregate(parts, first, out);
+    }
+    return ByteBuffer.wrap(out.toByteArray());
+  }
+
+  // A k-way merge, holding the current row of each partition in a heap; ties keep partition order.
+  private void mergeSorted(List<Part> parts, int[] columns, ByteArrayOutputStream out) {
+    PriorityQueue<Cursor> heap = new PriorityQueue<>((a, b) -> {
+      for (int i = 0; i < columns.length; i++) {
+        int order = compare(a.key.get(i), b.key.get(i), descending[i]);
+        if (order != 0) {
+          return order;
+        }
+      }
+      return Integer.compare(a.partition, b.partition);
+    });
+    for (int i = 0; i < parts.size(); i++) {
+      Cursor cursor = new Cursor(parts.get(i), i, columns);
+      if (cursor.advance()) {
+        heap.add(cursor);
+      }
+    }
+    while (!heap.isEmpty()) {
+      Cursor cursor = heap.poll();
+      cursor.part.copyRow(cursor.row, out);
+      if (cursor.advance()) {
+        heap.add(cursor);
+      }
+    }
+  }
+
+  private void aggregate(List<Part> parts, Part first, ByteArrayOutputStream out) throws SQLException {
+    int[] keyColumns = first.columns(keys);
+    Merge[] merges = new Merge[first.names.length];
+    for (Map.Entry<String, Merge> aggregate : aggregates.entrySet()) {
+      merges[first.columns(new String[] {aggregate.getKey()})[0]] = aggregate.getValue();
+    }
+    boolean[] isKey = new boolean[merges.length];
+    for (int column : keyColumns) {
+      isKey[column] = true;
+    }
+    String[] types = first.types.clone();
+    for (int column = 0; column < merges.length; column++) {
+      if (isKey[column]) {
+        continue;
+      }
+      if (merges[column] == null) {
+        throw new SQLException("Column " + first.names[column] + " is neither a group key nor a merged aggregate");
+      } else if (merges[column] == Merge.SUM) {
+        first.checkType(column, SUMMABLE, "be summed");
+        types[column] = sumType(types[column]);
+      } else {
+        first.checkType(column, ORDERABLE, "be merged with min or max");
+      }
+    }
+    out.writeBytes(first.bytes(first.buf.position(), first.typesStart));
+    for (int column = 0; column < types.length; column++) {
+      if (column > 0) {
+        out.write(CsvScanner.COMMA);
+      }
+      out.writeBytes(("\"" + types[column].replace("\"", "\"\"") + "\"").getBytes(StandardCharsets.UTF_8));
+    }
+    out.write(CsvScanner.LF);
+    Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+    int[] field = new int[2];
+    for (Part part : parts) {
+      for (int row = 0; row < part.rows.rowCount(); row++) {
+        List<Object> key = Arrays.asList(part.decodeKey(row, keyColumns, field));
+        Object[] cells = groups.get(key);
+        boolean added = cells == null;
+        if (added) {
+          cells = new Object[merges.length];
+          groups.put(key, cells);
+        }
+        for (int column = 0; column < merges.length; column++) {
+          if (!part.locate(row, column, field) || !added && isKey[column]) {
+            continue;
+          }
+          if (isKey[column]) {
+            cells[column] = part.raw(field);
+            continue;
+          }
+          Comparable<Object> value = part.value(column, field);
+          if (value == null) {
+            continue;
+          }
+          Object current = cells[column];
+          if (current == null) {
+            cells[column] = merges[column] == Merge.SUM ? value : new Extreme(value, part.raw(field));
+          } else if (merges[column] == Merge.SUM) {
+            cells[column] = add(current, value);
+          } else {
+            Extreme extreme = (Extreme) current;
+            int order = value.compareTo(extreme.value);
+            if (merges[column] == Merge.MIN ? order < 0 : order > 0) {
+              cells[column] = new Extreme(value, part.raw(field));
+            }
+          }
+        }
+      }
+    }
+    for (Object[] cells : groups.values()) {
+      for (int column = 0; column < cells.length; column++) {
+        if (column > 0) {
+          out.write(CsvScanner.COMMA);
+        }
+        out.writeBytes(encode(cells[column], first.types[column]));
+      }
+      out.write(CsvScanner.LF);
+    }
+  }
+
+  private static Object add(Object sum, Object value) {
+    return sum instanceof Double
+        ? (Object) ((Double) sum + (Double) value)
+        : ((BigDecimal) sum).add((BigDecimal) value);
+  }
+
+  private static byte[] encode(Object cell, String type) {
+    String text;
+    if (cell instanceof byte[]) {
+      return (byte[]) cell;
+    } else if (cell instanceof Extreme) {
+      return ((Extreme) cell).raw;
+    } else if (cell instanceof Double) {
+      double value = (Double) cell;
+      text = Double.isNaN(value) ? "nan" : Double.isInfinite(value) ? (value > 0 ? "inf" : "-inf")
+          : Double.toString(value);
+    } else if (cell instanceof BigDecimal) {
+      text = ((BigDecimal) cell).toPlainString();
+    } else {
+      // A group whose values were all null.
+      text = type.startsWith("Nullable(") ? "\\N" : "0";
+    }
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  // The type the engine gives sum(type): integers and floats widen to 64 bits, unless wider already, and decimals
+  // to the precision of Decimal128, or of Decimal256 for wider ones.
+  static String sumType(String type) {
+    String base = baseType(type);
+    String widened;
+    Matcher decimal = DECIMAL.matcher(base);
+    if (decimal.matches()) {
+      int precision = decimal.group(3) != null ? Integer.parseInt(decimal.group(2))
+          : decimal.group(1).equals("32") ? 9 : decimal.group(1).equals("64") ? 18
+          : decimal.group(1).equals("128") ? 38 : 76;
+      String scale = decimal.group(3) != null ? decimal.group(3) : decimal.group(2);
+      widened = "Decimal(" + (precision <= 38 ? 38 : 76) + ", " + scale + ")";
+    } else if (base.startsWith("Float")) {
+      widened = "Float64";
+    } else if (base.matches("U?Int(8|16|32|64)")) {
+      widened = base.startsWith("U") ? "UInt64" : "Int64";
+    } else {
+      widened = base;
+    }
+    return type.startsWith("Nullable(") ? "Nullable(" + widened + ")" : widened;
+  }
+
+  // Nulls sort last in either direction.
+  private static int compare(Comparable<Object> a, Comparable<Object> b, boolean descending) {
+    if (a == null || b == null) {
+      return a == b ? 0 : a == null ? 1 : -1;
+    }
+    int order = a.compareTo(b);
+    return descending ? -order : order;
+  }
+
+  private static String baseType(String type) {
+    while (type.startsWith("Nullable(") || type.startsWith("LowCardinality(")) {
+      type = type.substring(type.indexOf('(') + 1, type.length() - 1);
+    }
+    return type;
+  }
+
+  private static final class Extreme {
+    final Comparable<Object> value;
+    final byte[] raw;
+
+    Extreme(Comparable<Object> value, byte[] raw) {
+      this.value = value;
+      this.raw = raw;
+    }
+  }
+
+  private static final class Part {
+    final ByteBuffer buf;
+    final String[] names;
+    final String[] types;
+    final int typesStart;
+    final int rowsStart;
+    final RowIndex rows;
+    // Per column, the value of each name of an Enum8 or Enum16, and null for other types.
+    final List<Map<String, Long>> enums = new ArrayList<>();
+
+    Part(ByteBuffer buf) throws SQLException {
+      this.buf = buf;
+      int[] bounds = new int[32];
+      int namesEnd = CsvScanner.recordEnd(buf, buf.position(), buf.limit());
+      int typesStart = Math.min(namesEnd + 1, buf.limit());
+      int typesEnd = CsvScanner.recordEnd(buf, typesStart, buf.limit());
+      if (typesEnd >= buf.limit()) {
+        throw new SQLException("Partition result has no column header");
+      }
+      this.names = CsvScanner.decodeRecord(buf, buf.position(), namesEnd, bounds);
+      this.types = CsvScanner.decodeRecord(buf, typesStart, typesEnd, bounds);
+      this.typesStart = typesStart;
+      this.rowsStart = typesEnd + 1;
+      this.rows = RowIndex.build(buf, rowsStart);
+      for (String type : types) {
+        String base = baseType(type);
+        Map<String, Long> values = null;
+        if (base.startsWith("Enum")) {
+          values = new HashMap<>();
+          Matcher value = ENUM_VALUE.matcher(base);
+          while (value.find()) {
+            values.put(value.group(1).replaceAll("\\\\(.)", "$1"), Long.parseLong(value.group(2)));
+          }
+        }
+        enums.add(values);
+      }
+    }
+
+    void checkType(int column, Pattern supported, String use) throws SQLException {
+      if (!supported.matcher(baseType(types[column])).matches()) {
+        throw new SQLException("Column " + names[column] + " of type " + types[column] + " cannot " + use);
+      }
+    }
+
+    byte[] bytes(int start, int end) {
+      byte[] bytes = new byte[end - start];
+      buf.get(start, bytes);
+      return bytes;
+    }
+
+    int[] columns(String[] wanted) throws SQLException {
+      int[] columns = new int[wanted.length];
+      for (int i = 0; i < wanted.length; i++) {
+        columns[i] = Arrays.asList(names).indexOf(wanted[i]);
+        if (columns[i] < 0) {
+          throw new SQLException("No column " + wanted[i] + " in the partition results: " + Arrays.toString(names));
+        }
+      }
+      return columns;
+    }
+
+    boolean locate(int row, int column, int[] field) {
+      return CsvScanner.locateField(buf, rows.start(row), rows.end(row), column, field);
+    }
+
+    void copyRow(int row, ByteArrayOutputStream out) {
+      byte[] bytes = new byte[rows.end(row) - rows.start(row)];
+      buf.get(rows.start(row), bytes);
+      out.writeBytes(bytes);
+      out.write(CsvScanner.LF);
+    }
+
+    byte[] raw(int[] field) {
+      return bytes(field[0], field[1]);
+    }
+
+    Object[] decodeKey(int row, int[] columns, int[] field) {
+      Object[] key = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++) {
+        if (locate(row, columns[i], field)) {
+          key[i] = CsvScanner.decodeField(buf, field[0], field[1]);
+        }
+      }
+      return key;
+    }
+
+    // Cells compare as the engine orders them: numbers by value, floats as doubles and other numbers exactly, enums
+    // by the values of their names, and IP addresses by their bits. Strings, and dates and times in the engine's
+    // ISO format, compare as text. Callers check the type against ORDERABLE first.
+    @SuppressWarnings("unchecked")
+    Comparable<Object> value(int column, int[] field) {
+      String text = CsvScanner.decodeField(buf, field[0], field[1]);
+      if (text == null) {
+        return null;
+      }
+      String type = baseType(types[column]);
+      Comparable<?> value;
+      if (type.startsWith("Float")) {
+        value = CsvScanner.parseDouble(text);
+      } else if (type.startsWith("Int") || type.startsWith("UInt") || type.startsWith("Decimal")) {
+        value = new BigDecimal(text);
+      } else if (type.startsWith("Enum")) {
+        value = enums.get(column).get(text);
+      } else if (type.equals("IPv4")) {
+        long address = 0;
+        for (String octet : text.split("\\.")) {
+          address = address << 8 | Integer.parseInt(octet);
+        }
+        value = address;
+      } else if (type.equals("IPv6")) {
+        value = ipv6(text);
+      } else {
+        value = text;
+      }
+      return (Comparable<Object>) value;
+    }
+
+    // Parses a literal, which involves no name lookup; IPv4-mapped addresses come back as IPv4 and are mapped again.
+    private static BigInteger ipv6(String text) {
+      byte[] address;
+      try {
+        address = InetAddress.getByName(text).getAddress();
+      } catch (UnknownHostException e) {
+        throw new IllegalArgumentException("Not an IPv6 address: " + text, e);
+      }
+      BigInteger value = new BigInteger(1, address);
+      return address.length == 4 ? value.or(BigInteger.valueOf(0xffffL).shiftLeft(32)) : value;
+    }
+  }
+
+  private static final class Cursor {
+    final Part part;
+    final int partition;
+    final int[] columns;
+    final int[] field = new int[2];
+    final List<Comparable<Object>> key;
+    int row = -1;
+
+    Cursor(Part part, int partition, int[] columns) {
+      this.part = part;
+      this.partition = partition;
+      this.columns = columns;
+      this.key = new ArrayList<>(Collections.nCopies(columns.length, null));
+    }
+
+    boolean advance() {
+      if (++row >= part.rows.rowCount()) {
+        return false;
+      }
+      for (int i = 0; i < columns.length; i++) {
+        key.set(i, part.locate(row, columns[i], field) ? part.value(columns[i], field) : null);
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Forward-only result set that reads a keyset-ordered query one page of {@code fetchSize} rows at a time. As
+ * soon as a page arrives, the query for the following page is started on a background thread so that it is
+ * usually ready by the time the current page has been consumed. Pages are bounded by the key of the last row
+ * read, or by the number of rows read when a key column is nullable, as NULL keys cannot bound a page.
+ */
+final class ChdbPagedResultSet extends ChdbResultSet {
+  private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "chdb-prefetch");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final KeysetQuery query;
+  private final String[] settings;
+  private final QueryContext context;
+  private final int[] keyColumns;
+  private final boolean offsetPaging;
+  private long read;
+  private int remaining;
+  private int pageLimit;
+  private volatile CompletableFuture<LocalResultV2> nextPage;
+
+  private ChdbPagedResultSet(KeysetQuery query, LocalResultV2 firstPage, int fetchSize, int maxRows,
+                             String[] settings, QueryContext context) throws SQLException {
+    super(firstPage, true);
+    setType(TYPE_FORWARD_ONLY);
+    this.query = query;
+    this.settings = settings;
+    this.context = context;
+    this.remaining = maxRows > 0 ? maxRows : -1;
+    setFetchSize(fetchSize);
+    String[] keys = query.getKeys();
+    keyColumns = new int[keys.length];
+    boolean nullable = false;
+    for (int i = 0; i < keys.length; i++) {
+      keyColumns[i] = columnOf(keys[i]);
+      nullable |= keyColumns[i] >= 0 && getColumnTypes()[keyColumns[i]].contains("Nullable(");
+    }
+    offsetPaging = nullable;
+  }
+
+  /**
+   * Opens a paged scan of {@code query}. Falls back to a single unpaged query if the ORDER BY columns are not
+   * part of the result, since the next page cannot be bounded without them. Pages are charged to the memory
+   * account of {@code context} but not held back by its budget, as the page being read is only closed once the
+   * next one arrives.
+   */
+  static ChdbResultSet open(KeysetQuery query, int fetchSize, int maxRows, String[] settings, QueryContext context)
+      throws SQLException {
+    int limit = maxRows > 0 ? Math.min(fetchSize, maxRows) : fetchSize;
+    LocalResultV2 firstPage = ChdbStatement.query(query.pageSql(null, limit), settings, context);
+    ChdbPagedResultSet rs = new ChdbPagedResultSet(query, firstPage, fetchSize, maxRows, settings, context);
+    for (int column : rs.keyColumns) {
+      if (column < 0) {
+        rs.close();
+        String sql = query.pageSql(null, Integer.MAX_VALUE);
+        ChdbResultSet plain = new ChdbResultSet(ChdbStatement.query(sql, settings, context), true);
+        if (maxRows > 0) {
+          plain.limitRows(maxRows);
+        }
+        plain.setType(TYPE_FORWARD_ONLY);
+        return plain;
+      }
+    }
+    rs.pageLimit = limit;
+    rs.pageLoaded();
+    return rs;
+  }
+
+  private int columnOf(String key) {
+    String name = key.startsWith("`") ? key.substring(1, key.length() - 1) : key;
+    String[] names = getColumnNames();
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void pageLoaded() throws SQLException {
+    int count = getRowCount();
+    read += count;
+    if (remaining > 0) {
+      remaining -= count;
+    }
+    if (count < pageLimit || remaining == 0) {
+      return;
+    }
+    int limit = remaining > 0 ? Math.min(getFetchSize(), remaining) : getFetchSize();
+    String sql;
+    if (offsetPaging) {
+      sql = query.offsetPageSql(read, limit);
+    } else {
+      String[] types = getColumnTypes();
+      String[] after = new String[keyColumns.length];
+      for (int i = 0; i < keyColumns.length; i++) {
+        int column = keyColumns[i];
+        after[i] = KeysetQuery.literal(cell(count - 1, column + 1), types[column]);
+      }
+      sql = query.pageSql(after, limit);
+    }
+    nextPage = ChdbStatement.submit(sql, settings, context, PREFETCH);
+    pageLimit = limit;
+  }
+
+  @Override
+  public boolean next() throws SQLException {
+    if (super.next()) {
+      return true;
+    }
+    for (CompletableFuture<LocalResultV2> pending = nextPage; pending != null; pending = nextPage) {
+      LocalResultV2 page;
+      try {
+        page = pending.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SQLException("Interrupted while waiting for the next page", e);
+      } catch (ExecutionException e) {
+        nextPage = null;
+        throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+      }
+      nextPage = null;
+      getResult().close();
+      reset(page, true);
+      pageLoaded();
+      if (super.next()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Pages only exist one at a time, so the rows are streamed sequentially through next().
+  @Override
+  public <T> Stream<T> stream(RowMapper<T> mapper) throws SQLException {
+    Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+      private int rowNum;
+
+      @Override
+      public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+          if (!next()) {
+            return false;
+          }
+          action.accept(mapper.mapRow(ChdbPagedResultSet.this, ++rowNum));
+          return true;
+        } catch (SQLException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    return StreamSupport.stream(rows, false);
+  }
+
+  /** Stops the prefetch of the next page; a page still being read is freed as soon as it arrives. */
+  void cancelPrefetch() {
+    CompletableFuture<LocalResultV2> pending = nextPage;
+    if (pending != null) {
+      pending.completeExceptionally(new SQLException("Query was cancelled"));
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    CompletableFuture<LocalResultV2> pending = nextPage;
+    if (pending != null) {
+      nextPage = null;
+      if (!pending.completeExceptionally(new SQLException("Result set is closed"))) {
+        pending.thenAccept(LocalResultV2::close);
+      }
+    }
+    super.close();
+  }
+}
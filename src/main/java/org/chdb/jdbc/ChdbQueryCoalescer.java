@@ -0,0 +1,340 @@
+package org.chdb.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Coalesces concurrent lookups of the form {@code SELECT ... WHERE key = ?} into one engine call. Keys submitted
+ * within a short window are collected, the query is run once with {@code key IN (...)}, and the rows are handed
+ * back to each caller as a result set of its own. Only queries whose rows can be split back by key are batched:
+ * a projection of plain columns from one table, filtered by AND-ed comparisons of columns with literals, one of
+ * them {@code key = ?}, and optionally ordered by plain columns. Any other query runs one call per lookup.
+ * Created through {@link ChdbConnection#coalesce}.
+ */
+public final class ChdbQueryCoalescer implements AutoCloseable {
+  private static final String IDENT = "(?:`[^`]+`|[A-Za-z_]\\w*)";
+  private static final String NAME = IDENT + "(?:\\." + IDENT + ")?";
+  private static final String COLUMN = NAME + "(?:\\s+AS\\s+" + IDENT + ")?";
+  private static final String VALUE = "(?:\\?|-?\\d+(?:\\.\\d+)?|'(?:[^'\\\\]|\\\\.)*')";
+  private static final String TERM = NAME + "\\s*(?:=|!=|<>|<=|>=|<|>)\\s*" + VALUE;
+  private static final String ORDER_KEY = NAME + "(?:\\s+(?:ASC|DESC))?";
+  private static final Pattern SHAPE = Pattern.compile("(?is)^\\s*SELECT\\s+(?:DISTINCT\\s+)?(\\*|" + COLUMN
+      + "(?:\\s*,\\s*" + COLUMN + ")*)\\s+FROM\\s+" + NAME + "\\s+WHERE\\s+(" + TERM + "(?:\\s+AND\\s+" + TERM
+      + ")*)(?:\\s+ORDER\\s+BY\\s+" + ORDER_KEY + "(?:\\s*,\\s*" + ORDER_KEY + ")*)?\\s*;?\\s*$");
+  private static final Pattern PLACEHOLDER = Pattern.compile("(" + NAME + ")\\s*=\\s*\\?");
+  private static final String KEY_ALIAS = "__chdb_key";
+  private static final DateTimeFormatter DATE_TIME = new DateTimeFormatterBuilder()
+      .append(DateTimeFormatter.ISO_LOCAL_DATE).appendLiteral(' ').append(DateTimeFormatter.ISO_LOCAL_TIME)
+      .toFormatter();
+
+  private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "chdb-coalescer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "chdb-coalescer-query");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final String sql;
+  private final long windowMicros;
+  private final int maxBatch;
+  private final String[] settings;
+  private final QueryContext context;
+  private final String batchPrefix;
+  private final String batchSuffix;
+  private List<Lookup> pending = new ArrayList<>();
+  private ScheduledFuture<?> timer;
+  private boolean closed;
+
+  ChdbQueryCoalescer(String sql, long windowMicros, int maxBatch, String[] settings, QueryContext context)
+      throws SQLException {
+    if (windowMicros < 0 || maxBatch <= 0) {
+      throw new SQLException("Invalid coalescing window or batch size: " + windowMicros + ", " + maxBatch);
+    }
+    if (sql.indexOf('?') < 0 || sql.indexOf('?') != sql.lastIndexOf('?')) {
+      throw new SQLException("A coalesced query takes exactly one parameter: " + sql);
+    }
+    this.sql = sql;
+    this.windowMicros = windowMicros;
+    this.maxBatch = maxBatch;
+    this.settings = settings;
+    this.context = context;
+    Matcher shape = SHAPE.matcher(sql);
+    Matcher placeholder = PLACEHOLDER.matcher(sql);
+    if (shape.matches() && placeholder.region(shape.start(2), shape.end(2)).find()) {
+      // SELECT [DISTINCT] key AS __chdb_key, <columns> ... WHERE key IN (<keys>) ...
+      String key = placeholder.group(1);
+      batchPrefix = sql.substring(0, shape.start(1)) + key + " AS " + KEY_ALIAS + ", "
+          + sql.substring(shape.start(1), placeholder.start()) + key + " IN (";
+      batchSuffix = ")" + sql.substring(placeholder.end());
+    } else {
+      batchPrefix = null;
+      batchSuffix = null;
+    }
+  }
+
+  /** Returns true if lookups are batched, false if the query runs once per lookup. */
+  public boolean isCoalescing() {
+    return batchPrefix != null;
+  }
+
+  /** Runs the query for {@code key}, waiting for the batch it joins. */
+  public ResultSet query(Object key) throws SQLException {
+    try {
+      return submit(key).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+    }
+  }
+
+  /** Queues a lookup of {@code key}; the future completes with its rows once its batch has run. */
+  public CompletableFuture<ResultSet> submit(Object key) {
+    Lookup lookup = new Lookup(key);
+    if (!isCoalescing()) {
+      CompletableFuture.runAsync(() -> runAlone(lookup), EXECUTOR);
+      return lookup.future;
+    }
+    List<Lookup> full = null;
+    synchronized (this) {
+      if (closed) {
+        lookup.future.completeExceptionally(new SQLException("Coalescer is closed"));
+        return lookup.future;
+      }
+      pending.add(lookup);
+      if (pending.size() >= maxBatch) {
+        full = takePending();
+      } else if (pending.size() == 1) {
+        timer = TIMER.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+      }
+    }
+    if (full != null) {
+      List<Lookup> batch = full;
+      EXECUTOR.execute(() -> run(batch));
+    }
+    return lookup.future;
+  }
+
+  private synchronized List<Lookup> takePending() {
+    List<Lookup> batch = pending;
+    pending = new ArrayList<>();
+    if (timer != null) {
+      timer.cancel(false);
+      timer = null;
+    }
+    return batch;
+  }
+
+  private void flush() {
+    List<Lookup> batch = takePending();
+    if (!batch.isEmpty()) {
+      EXECUTOR.execute(() -> run(batch));
+    }
+  }
+
+  private void runAlone(Lookup lookup) {
+    try {
+      int parameter = sql.indexOf('?');
+      String single = sql.substring(0, parameter) + literal(lookup.key) + sql.substring(parameter + 1);
+      context.memory().reserve(0);
+      lookup.future.complete(new ChdbResultSet(ChdbStatement.query(single, settings, context), true));
+    } catch (SQLException | RuntimeException e) {
+      lookup.future.completeExceptionally(e);
+    }
+  }
+
+  private void run(List<Lookup> batch) {
+    Map<String, List<Lookup>> byKey = new LinkedHashMap<>();
+    for (Lookup lookup : batch) {
+      byKey.computeIfAbsent(lookup.literal, k -> new ArrayList<>()).add(lookup);
+    }
+    StringBuilder batchSql = new StringBuilder(batchPrefix).append(String.join(", ", byKey.keySet()));
+    batchSql.append(batchSuffix);
+    try (LocalResultV2 result = batchQuery(batchSql.toString())) {
+      Parts parts = split(result.getBuf());
+      for (Lookup lookup : batch) {
+        ByteBuffer buf = parts.rows(lookup.key);
+        lookup.future.complete(new ChdbResultSet(new LocalResultV2(buf.duplicate(), 0, 0, 0, null), true));
+      }
+    } catch (SQLException | RuntimeException e) {
+      for (Lookup lookup : batch) {
+        lookup.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private LocalResultV2 batchQuery(String batchSql) throws SQLException {
+    context.memory().reserve(0);
+    return ChdbStatement.query(batchSql, settings, context);
+  }
+
+  /**
+   * Splits a batch result into a CSVWithNamesAndTypes buffer per key, without the key column. The rows of each key
+   * are copied as they are, so only the key cells are decoded here. Rows with a NULL key cannot match a lookup and
+   * are dropped.
+   */
+  static Parts split(ByteBuffer buf) {
+    int position = buf.position();
+    int namesEnd = CsvScanner.recordEnd(buf, position, buf.limit());
+    int[] bounds = new int[32];
+    String[] names = CsvScanner.decodeRecord(buf, position, namesEnd, bounds);
+    position = Math.min(namesEnd + 1, buf.limit());
+    int typesEnd = CsvScanner.recordEnd(buf, position, buf.limit());
+    String[] types = CsvScanner.decodeRecord(buf, position, typesEnd, bounds);
+    byte[] header = (headerRow(names) + headerRow(types)).getBytes(StandardCharsets.UTF_8);
+
+    String keyType = types.length > 0 ? types[0] : "String";
+
+    RowIndex index = RowIndex.build(buf, Math.min(typesEnd + 1, buf.limit()));
+    Map<Object, ByteArrayOutputStream> parts = new HashMap<>();
+    int[] key = new int[2];
+    for (int row = 0; row < index.rowCount(); row++) {
+      int start = index.start(row);
+      int end = index.end(row);
+      CsvScanner.locateField(buf, start, end, 0, key);
+      Object value = canonical(CsvScanner.decodeField(buf, key[0], key[1]), keyType);
+      if (value == null) {
+        continue;
+      }
+      ByteArrayOutputStream part = parts.computeIfAbsent(value, k -> {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(header);
+        return out;
+      });
+      byte[] cells = new byte[Math.max(end - key[1] - 1, 0)];
+      buf.get(Math.min(key[1] + 1, end), cells);
+      part.writeBytes(cells);
+      part.write('\n');
+    }
+    Map<Object, ByteBuffer> buffers = new HashMap<>();
+    for (Map.Entry<Object, ByteArrayOutputStream> part : parts.entrySet()) {
+      buffers.put(part.getKey(), ByteBuffer.wrap(part.getValue().toByteArray()));
+    }
+    return new Parts(keyType, buffers, ByteBuffer.wrap(header));
+  }
+
+  /** The rows of a batch result by key, compared in the canonical form of the key column's type. */
+  static final class Parts {
+    private final String keyType;
+    private final Map<Object, ByteBuffer> rows;
+    private final ByteBuffer empty;
+
+    Parts(String keyType, Map<Object, ByteBuffer> rows, ByteBuffer empty) {
+      this.keyType = keyType;
+      this.rows = rows;
+      this.empty = empty;
+    }
+
+    /** The rows of {@code key}, or only the header if it has none. */
+    ByteBuffer rows(Object key) {
+      Object canonical = canonical(key, keyType);
+      return canonical == null ? empty : rows.getOrDefault(canonical, empty);
+    }
+  }
+
+  /**
+   * Returns {@code key} in a form that equals every other spelling of the same value of {@code type}: numbers as
+   * BigDecimals without trailing zeros, so 1.0 and 01 find the rows of 1, dates and times as java.time values, and
+   * anything else, or anything that does not parse as the type, as its text.
+   */
+  static Object canonical(Object key, String type) {
+    if (key == null) {
+      return null;
+    }
+    String base = baseType(type);
+    String text = String.valueOf(key).trim();
+    try {
+      if (base.startsWith("Int") || base.startsWith("UInt") || base.startsWith("Float")
+          || base.startsWith("Decimal")) {
+        return new BigDecimal(text).stripTrailingZeros();
+      }
+      if (base.startsWith("DateTime")) {
+        return key instanceof Timestamp ? ((Timestamp) key).toLocalDateTime()
+            : key instanceof LocalDateTime ? key : LocalDateTime.parse(text, DATE_TIME);
+      }
+      if (base.startsWith("Date")) {
+        return key instanceof java.sql.Date ? ((java.sql.Date) key).toLocalDate()
+            : key instanceof LocalDate ? key : LocalDate.parse(text);
+      }
+    } catch (NumberFormatException | DateTimeParseException e) {
+      return text;
+    }
+    return text;
+  }
+
+  private static String baseType(String type) {
+    while (type.startsWith("Nullable(") || type.startsWith("LowCardinality(")) {
+      type = type.substring(type.indexOf('(') + 1, type.length() - 1);
+    }
+    return type;
+  }
+
+  // A header row without its first field, the key column added to the batch query.
+  private static String headerRow(String[] fields) {
+    StringBuilder row = new StringBuilder();
+    for (int i = 1; i < fields.length; i++) {
+      row.append(i > 1 ? "," : "").append('"').append(fields[i].replace("\"", "\"\"")).append('"');
+    }
+    return row.append('\n').toString();
+  }
+
+  static String literal(Object key) {
+    if (key == null) {
+      return "NULL";
+    }
+    if (key instanceof Number) {
+      return key.toString();
+    }
+    if (key instanceof Timestamp || key instanceof LocalDateTime) {
+      LocalDateTime time = key instanceof Timestamp ? ((Timestamp) key).toLocalDateTime() : (LocalDateTime) key;
+      return "'" + DATE_TIME.format(time) + "'";
+    }
+    return KeysetQuery.literal(String.valueOf(key), "String");
+  }
+
+  /** Runs the lookups still waiting for their window and rejects new ones. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    flush();
+  }
+
+  private static final class Lookup {
+    final Object key;
+    final String literal;
+    final CompletableFuture<ResultSet> future = new CompletableFuture<>();
+
+    Lookup(Object key) {
+      this.key = key;
+      this.literal = literal(key);
+    }
+  }
+}
@@ -2,55 +2,456 @@ package org.chdb.jdbc;
 
 import java.io.*;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.sql.*;
-import java.util.ArrayList;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
 import java.util.Calendar;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ChdbResultSet implements ResultSet {
   private LocalResultV2 result;
+  private ByteBuffer buf;
+  private RowIndex rows;
+  private String[] columnNames;
+  private String[] columnTypes;
   private int cursor = -1;
-  private List<String> records;
-
-  public ChdbResultSet(LocalResultV2 result) throws IOException {
+  private int[] bounds = new int[32];
+  private final int[] cellBounds = new int[2];
+  private int boundsRow = -1;
+  private int fieldCount;
+  private boolean wasNull;
+  private int fetchSize;
+  private int rowLimit = Integer.MAX_VALUE;
+  private boolean view;
+  private ChunkedDecoder decoded;
+  private ChunkedDecoder.Chunk chunk;
+  private int chunkIndex;
+  private int chunkFirstRow;
+  private StringDictionary[] dictionaries;
+  private DateTimeDecoder[] temporals;
+  private int[] decimalScales;
+  private int type = TYPE_SCROLL_INSENSITIVE;
+  private boolean closed;
+
+  public ChdbResultSet(LocalResultV2 result) {
+    this(result, false);
+  }
+
+  // typedHeader: the buffer starts with the name and type rows of CSVWithNamesAndTypes.
+  ChdbResultSet(LocalResultV2 result, boolean typedHeader) {
+    reset(result, typedHeader);
+  }
+
+  // A cursor of its own over the buffer and row index of source; closing it leaves source open, and it is closed
+  // once the result of source is.
+  ChdbResultSet(ChdbResultSet source) {
+    this.result = source.result;
+    this.buf = source.buf;
+    this.rows = source.rows();
+    this.columnNames = source.columnNames;
+    this.columnTypes = source.columnTypes;
+    this.rowLimit = source.rowLimit;
+    this.view = true;
+  }
+
+  void reset(LocalResultV2 result, boolean typedHeader) {
+    ResultDecodeEvent event = new ResultDecodeEvent();
+    event.begin();
     this.result = result;
-    this.records = new ArrayList<>();
-    parseData(result.getBuf());
+    this.buf = result.getBuf();
+    int position = buf.position();
+    if (typedHeader) {
+      int namesEnd = CsvScanner.recordEnd(buf, position, buf.limit());
+      columnNames = CsvScanner.decodeRecord(buf, position, namesEnd, bounds);
+      position = Math.min(namesEnd + 1, buf.limit());
+      int typesEnd = CsvScanner.recordEnd(buf, position, buf.limit());
+      columnTypes = CsvScanner.decodeRecord(buf, position, typesEnd, bounds);
+      position = Math.min(typesEnd + 1, buf.limit());
+    }
+    if (columnTypes != null && ChunkedDecoder.worthwhile(buf, position)) {
+      this.decoded = ChunkedDecoder.start(buf, position, columnTypes, ForkJoinPool.commonPool());
+      this.rows = null;
+    } else {
+      this.decoded = null;
+      this.rows = RowIndex.build(buf, position);
+    }
+    this.chunk = null;
+    this.dictionaries = null;
+    this.temporals = null;
+    this.decimalScales = null;
+    this.cursor = -1;
+    this.boundsRow = -1;
+    event.end();
+    if (event.shouldCommit()) {
+      // Chunks report their own decoding as they complete.
+      event.mode = decoded != null ? "header" : "index";
+      event.bytes = buf.limit() - buf.position();
+      event.rows = rows != null ? rows.rowCount() : -1;
+      event.columns = columnTypes != null ? columnTypes.length : 0;
+      event.commit();
+    }
   }
 
-  private void parseData(ByteBuffer buffer) throws IOException {
-    BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(toByteArray(buffer)), StandardCharsets.UTF_8));
-    String line;
-    while ((line = reader.readLine()) != null) {
-      records.add(line);
+  // Large results are decoded in chunks, and the full index only exists once every chunk is done.
+  private RowIndex rows() {
+    if (rows == null) {
+      rows = decoded.index();
     }
+    return rows;
+  }
+
+  LocalResultV2 getResult() {
+    return result;
+  }
+
+  int getRowCount() {
+    return rows().rowCount();
+  }
+
+  String[] getColumnNames() {
+    return columnNames;
+  }
+
+  String[] getColumnTypes() {
+    return columnTypes;
+  }
+
+  // The whole result is held in the buffer, so any result set can scroll; statements may still ask for
+  // forward-only ones.
+  void setType(int type) {
+    this.type = type;
   }
 
-  private byte[] toByteArray(ByteBuffer buffer) {
-    byte[] bytes = new byte[buffer.remaining()];
-    buffer.get(bytes);
-    return bytes;
+  // Caps the visible rows when a row limit could not be pushed down into the query.
+  void limitRows(int maxRows) {
+    rowLimit = maxRows;
+  }
+
+  // Decodes a cell of any row without moving the cursor.
+  String cell(int row, int columnIndex) throws SQLException {
+    if (isClosed()) {
+      throw new SQLException("Result set is closed");
+    }
+    if (columnIndex < 1 || !CsvScanner.locateField(buf, rows().start(row), rows().end(row), columnIndex - 1,
+        cellBounds)) {
+      throw new SQLException("Column index out of bounds: " + columnIndex);
+    }
+    return CsvScanner.decodeField(buf, cellBounds[0], cellBounds[1]);
+  }
+
+  void moveTo(int row) {
+    cursor = row;
+  }
+
+  /**
+   * Streams the rows after the current position, mapping each through {@code mapper}, and leaves this result set
+   * after its last row. The stream may be made parallel; rows are then decoded and mapped on the fork-join pool,
+   * each split with its own cursor, so the mapper must not depend on the order of calls.
+   */
+  public <T> Stream<T> stream(RowMapper<T> mapper) throws SQLException {
+    int count = Math.min(rows().rowCount(), rowLimit);
+    int from = Math.min(cursor + 1, count);
+    cursor = count;
+    return StreamSupport.stream(new RowSpliterator<>(this, mapper, from, count), false);
+  }
+
+  /**
+   * Maps the current row to {@code type}: a record built through its canonical constructor, or a class with a
+   * no-argument constructor whose setters or fields receive the matching columns. The mapper is compiled once per
+   * result schema and target class, so each later row costs one constructor call plus the cell reads.
+   */
+  public <T> T mapTo(Class<T> type) throws SQLException {
+    checkCursor();
+    String[] columns = columnNames;
+    if (columns == null) {
+      if (boundsRow != cursor) {
+        splitCurrentRow();
+      }
+      columns = new String[fieldCount];
+      for (int i = 0; i < fieldCount; i++) {
+        columns[i] = "_" + (i + 1);
+      }
+    }
+    return type.cast(RecordMappers.forType(type, columns).mapRow(this, cursor + 1));
   }
 
   @Override
   public boolean next() throws SQLException {
-    if (cursor < records.size() - 1) {
+    if (decoded != null) {
+      // The chunks of a closed result set were cancelled.
+      if (isClosed()) {
+        throw new SQLException("Result set is closed");
+      }
+      return nextDecoded();
+    }
+    int count = Math.min(rows.rowCount(), rowLimit);
+    if (cursor < count - 1) {
       cursor++;
       return true;
     }
+    cursor = count;
     return false;
   }
 
-  private String getValue(int columnIndex) throws SQLException {
-    if (cursor < 0 || cursor >= records.size()) {
+  private boolean nextDecoded() {
+    if (cursor + 1 >= rowLimit) {
+      cursor = rowLimit;
+      return false;
+    }
+    if (chunk == null || cursor + 1 < chunkFirstRow) {
+      chunkIndex = 0;
+      chunkFirstRow = 0;
+      chunk = decoded.chunk(0);
+    }
+    while (cursor + 1 - chunkFirstRow >= chunk.rowCount) {
+      if (chunkIndex + 1 >= decoded.chunkCount()) {
+        cursor = chunkFirstRow + chunk.rowCount;
+        return false;
+      }
+      chunkFirstRow += chunk.rowCount;
+      chunk = decoded.chunk(++chunkIndex);
+    }
+    cursor++;
+    return true;
+  }
+
+  private int visibleRows() {
+    return Math.min(rows().rowCount(), rowLimit);
+  }
+
+  // Moves to a row, or before the first or after the last row when row is out of range. Rows are located through
+  // the row index, or the chunk holding them, so the rows skipped over are never decoded.
+  private boolean scrollTo(int row) throws SQLException {
+    if (type == TYPE_FORWARD_ONLY) {
+      throw new SQLException("Result set is TYPE_FORWARD_ONLY");
+    }
+    int count = visibleRows();
+    if (row < 0 || row >= count) {
+      cursor = row < 0 ? -1 : count;
+      return false;
+    }
+    cursor = row;
+    if (decoded != null) {
+      if (isClosed()) {
+        throw new SQLException("Result set is closed");
+      }
+      if (chunk == null) {
+        chunkIndex = 0;
+        chunkFirstRow = 0;
+        chunk = decoded.chunk(0);
+      }
+      while (cursor < chunkFirstRow) {
+        chunk = decoded.chunk(--chunkIndex);
+        chunkFirstRow -= chunk.rowCount;
+      }
+      while (cursor >= chunkFirstRow + chunk.rowCount) {
+        chunkFirstRow += chunk.rowCount;
+        chunk = decoded.chunk(++chunkIndex);
+      }
+    }
+    return true;
+  }
+
+  // Returns the row of the current chunk the cursor is on, for result sets decoded in chunks.
+  private int chunkRow() {
+    return cursor - chunkFirstRow;
+  }
+
+  private boolean onDecodedRow() {
+    return decoded != null && chunk != null && cursor >= chunkFirstRow && chunkRow() < chunk.rowCount;
+  }
+
+  private void checkCursor() throws SQLException {
+    if (closed || result.isClosed()) {
+      throw new SQLException("Result set is closed");
+    }
+    boolean valid = decoded != null ? onDecodedRow() : cursor >= 0 && cursor < rows.rowCount();
+    if (!valid) {
       throw new SQLException("Cursor out of bounds");
     }
+  }
 
-    return records.get(cursor);
+  private void splitCurrentRow() {
+    int start = decoded != null ? chunk.start(chunkRow()) : rows.start(cursor);
+    int end = decoded != null ? chunk.end(chunkRow()) : rows.end(cursor);
+    fieldCount = CsvScanner.splitFields(buf, start, end, bounds);
+    if (fieldCount * 2 > bounds.length) {
+      bounds = new int[fieldCount * 2];
+      CsvScanner.splitFields(buf, start, end, bounds);
+    }
+    boundsRow = cursor;
+  }
+
+  private String getValue(int columnIndex) throws SQLException {
+    checkCursor();
+    if (decoded != null && columnIndex >= 1 && columnIndex <= columnTypes.length
+        && chunk.kind(columnIndex - 1) == ChunkedDecoder.STRING) {
+      String value = chunk.getString(columnIndex - 1, chunkRow());
+      wasNull = value == null;
+      return value;
+    }
+    int slot = locateCell(columnIndex);
+    return slot < 0 ? null : decodeCell(columnIndex - 1, bounds[slot], bounds[slot + 1]);
+  }
+
+  // Returns the bounds slot of a cell of the current row, or -1 with wasNull set if the cell is null.
+  private int locateCell(int columnIndex) throws SQLException {
+    if (boundsRow != cursor) {
+      splitCurrentRow();
+    }
+    if (columnIndex < 1 || columnIndex > fieldCount) {
+      throw new SQLException("Column index out of bounds: " + columnIndex);
+    }
+    int slot = (columnIndex - 1) << 1;
+    wasNull = CsvScanner.isNull(buf, bounds[slot], bounds[slot + 1]);
+    return wasNull ? -1 : slot;
+  }
+
+  // Temporal cells are parsed from their bytes by a decoder per column, which caches recent values.
+  private DateTimeDecoder temporal(int column) {
+    if (temporals == null) {
+      temporals = new DateTimeDecoder[Math.max(fieldCount, columnTypes == null ? 0 : columnTypes.length)];
+    }
+    if (column >= temporals.length) {
+      temporals = Arrays.copyOf(temporals, column + 1);
+    }
+    DateTimeDecoder decoder = temporals[column];
+    if (decoder == null) {
+      decoder = temporals[column] = DateTimeDecoder.forType(columnType(column));
+    }
+    return decoder;
+  }
+
+  LocalDate getLocalDate(int columnIndex) throws SQLException {
+    checkCursor();
+    int slot = locateCell(columnIndex);
+    try {
+      return slot < 0 ? null : temporal(columnIndex - 1).date(buf, bounds[slot], bounds[slot + 1]);
+    } catch (DateTimeException e) {
+      throw new SQLException("Column " + columnIndex + " is not a date", e);
+    }
+  }
+
+  LocalDateTime getLocalDateTime(int columnIndex) throws SQLException {
+    checkCursor();
+    int slot = locateCell(columnIndex);
+    try {
+      return slot < 0 ? null : temporal(columnIndex - 1).dateTime(buf, bounds[slot], bounds[slot + 1]);
+    } catch (DateTimeException e) {
+      throw new SQLException("Column " + columnIndex + " is not a date-time", e);
+    }
+  }
+
+  LocalTime getLocalTime(int columnIndex) throws SQLException {
+    checkCursor();
+    int slot = locateCell(columnIndex);
+    try {
+      return slot < 0 ? null : temporal(columnIndex - 1).time(buf, bounds[slot], bounds[slot + 1]);
+    } catch (DateTimeException e) {
+      throw new SQLException("Column " + columnIndex + " is not a time", e);
+    }
+  }
+
+  Instant getInstant(int columnIndex) throws SQLException {
+    checkCursor();
+    int slot = locateCell(columnIndex);
+    try {
+      return slot < 0 ? null : temporal(columnIndex - 1).instant(buf, bounds[slot], bounds[slot + 1]);
+    } catch (DateTimeException e) {
+      throw new SQLException("Column " + columnIndex + " is not a date-time", e);
+    }
+  }
+
+  Struct getStruct(int columnIndex) throws SQLException {
+    int[] cell = nestedCell(columnIndex, '(');
+    return cell == null ? null
+        : new ChdbStruct(result, buf, cell[0], cell[1], NestedValues.unwrap(columnType(columnIndex - 1)));
+  }
+
+  Map<Object, Object> getMap(int columnIndex) throws SQLException {
+    int[] cell = nestedCell(columnIndex, '{');
+    return cell == null ? null : NestedValues.map(result, buf, cell[0], cell[1], columnType(columnIndex - 1));
+  }
+
+  // Returns the bounds of a nested value opening with the given bracket, without the quotes of its CSV field.
+  private int[] nestedCell(int columnIndex, char open) throws SQLException {
+    checkCursor();
+    int slot = locateCell(columnIndex);
+    if (slot < 0) {
+      return null;
+    }
+    int start = bounds[slot];
+    int end = bounds[slot + 1];
+    if (end - start >= 2 && buf.get(start) == CsvScanner.QUOTE) {
+      start++;
+      end--;
+    }
+    if (start >= end || buf.get(start) != open) {
+      String kind = open == '[' ? "an Array" : open == '(' ? "a Tuple" : "a Map";
+      throw new SQLException("Column " + columnIndex + " is not " + kind);
+    }
+    return new int[] {start, end};
+  }
+
+  private String columnType(int column) {
+    return columnTypes != null && column < columnTypes.length ? columnTypes[column] : null;
+  }
+
+  // The scale of a Decimal column, so cells keep it even when trailing zeros were not printed; -1 otherwise.
+  private int decimalScale(int column) {
+    if (columnTypes == null || column >= columnTypes.length) {
+      return -1;
+    }
+    if (decimalScales == null) {
+      decimalScales = new int[columnTypes.length];
+      for (int i = 0; i < columnTypes.length; i++) {
+        decimalScales[i] = parseDecimalScale(columnTypes[i]);
+      }
+    }
+    return decimalScales[column];
+  }
+
+  private static int parseDecimalScale(String type) {
+    int at = type.indexOf("Decimal");
+    int open = type.indexOf('(', at);
+    int close = type.indexOf(')', open);
+    if (at < 0 || open < 0 || close < 0) {
+      return -1;
+    }
+    String[] args = type.substring(open + 1, close).split(",");
+    boolean sized = open > at + "Decimal".length();
+    try {
+      // Decimal32(S) names only the scale; Decimal(P, S) names the precision first.
+      return sized ? Integer.parseInt(args[0].trim()) : args.length > 1 ? Integer.parseInt(args[1].trim()) : 0;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  // Typed results decode cells through a per-column dictionary so repeated values share one String.
+  private String decodeCell(int column, int start, int end) {
+    if (columnTypes == null || column >= columnTypes.length) {
+      return CsvScanner.decodeField(buf, start, end);
+    }
+    if (dictionaries == null) {
+      dictionaries = new StringDictionary[columnTypes.length];
+    }
+    StringDictionary dictionary = dictionaries[column];
+    if (dictionary == null) {
+      dictionary = dictionaries[column] = StringDictionary.forType(columnTypes[column]);
+    }
+    return dictionary.decode(buf, start, end);
   }
 
   @Override
@@ -60,67 +461,105 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public boolean getBoolean(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    String value = getValue(i);
+    return value != null && (value.equals("true") || value.equals("1"));
   }
 
   @Override
   public byte getByte(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return (byte) getLong(i);
   }
 
   @Override
   public short getShort(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return (short) getLong(i);
   }
 
   @Override
   public int getInt(int columnIndex) throws SQLException {
-    return Integer.parseInt(getValue(columnIndex));
+    if (onDecodedRow() && chunk.kind(columnIndex - 1) == ChunkedDecoder.LONG) {
+      return (int) getLong(columnIndex);
+    }
+    String value = getValue(columnIndex);
+    return value == null ? 0 : Integer.parseInt(value);
   }
 
   @Override
   public long getLong(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (onDecodedRow() && chunk.kind(i - 1) == ChunkedDecoder.LONG) {
+      wasNull = chunk.isNull(i - 1, chunkRow());
+      return chunk.getLong(i - 1, chunkRow());
+    }
+    String value = getValue(i);
+    return value == null ? 0L : Long.parseLong(value);
   }
 
   @Override
   public float getFloat(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return (float) getDouble(i);
   }
 
   @Override
   public double getDouble(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (onDecodedRow() && i >= 1 && chunk.kind(i - 1) != ChunkedDecoder.STRING) {
+      int column = i - 1;
+      wasNull = chunk.isNull(column, chunkRow());
+      return chunk.kind(column) == ChunkedDecoder.DOUBLE
+          ? chunk.getDouble(column, chunkRow()) : chunk.getLong(column, chunkRow());
+    }
+    String value = getValue(i);
+    return value == null ? 0d : CsvScanner.parseDouble(value);
   }
 
   @Override
-  public BigDecimal getBigDecimal(int i, int i1) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+  public BigDecimal getBigDecimal(int i, int scale) throws SQLException {
+    BigDecimal value = getBigDecimal(i);
+    return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
   }
 
   @Override
   public byte[] getBytes(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    checkCursor();
+    int slot = locateCell(i);
+    if (slot < 0) {
+      return null;
+    }
+    int start = bounds[slot];
+    int end = bounds[slot + 1];
+    boolean quoted = end - start >= 2 && buf.get(start) == CsvScanner.QUOTE;
+    if (!quoted || CsvScanner.KERNEL.indexOf(buf, start + 1, end - 1, CsvScanner.QUOTE) == end - 1) {
+      byte[] bytes = new byte[quoted ? end - start - 2 : end - start];
+      buf.get(quoted ? start + 1 : start, bytes);
+      return bytes;
+    }
+    try (InputStream in = new CellInputStream(result, buf, start, end)) {
+      return in.readAllBytes();
+    } catch (IOException e) {
+      throw new SQLException(e);
+    }
   }
 
   @Override
   public Date getDate(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    LocalDate value = getLocalDate(i);
+    return value == null ? null : Date.valueOf(value);
   }
 
   @Override
   public Time getTime(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    LocalTime value = getLocalTime(i);
+    return value == null ? null : Time.valueOf(value);
   }
 
   @Override
   public Timestamp getTimestamp(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    Instant value = getInstant(i);
+    return value == null ? null : Timestamp.from(value);
   }
 
   @Override
   public InputStream getAsciiStream(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getBinaryStream(i);
   }
 
   @Override
@@ -128,19 +567,29 @@ public class ChdbResultSet implements ResultSet {
     throw new SQLException("This method has not been implemented yet.");
   }
 
+  // The stream reads the cell in place from the result buffer, so it stays usable only while this is open.
   @Override
   public InputStream getBinaryStream(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    checkCursor();
+    int slot = locateCell(i);
+    return slot < 0 ? null : new CellInputStream(result, buf, bounds[slot], bounds[slot + 1]);
   }
 
   @Override
   public void close() throws SQLException {
-    // No resources to close
+    if (view) {
+      return;
+    }
+    closed = true;
+    if (decoded != null) {
+      decoded.close();
+    }
+    result.close();
   }
 
   @Override
   public boolean wasNull() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return wasNull;
   }
 
   @Override
@@ -150,17 +599,17 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public boolean getBoolean(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getBoolean(findColumn(s));
   }
 
   @Override
   public byte getByte(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getByte(findColumn(s));
   }
 
   @Override
   public short getShort(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getShort(findColumn(s));
   }
 
   @Override
@@ -170,47 +619,47 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public long getLong(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getLong(findColumn(s));
   }
 
   @Override
   public float getFloat(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getFloat(findColumn(s));
   }
 
   @Override
   public double getDouble(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getDouble(findColumn(s));
   }
 
   @Override
-  public BigDecimal getBigDecimal(String s, int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+  public BigDecimal getBigDecimal(String s, int scale) throws SQLException {
+    return getBigDecimal(findColumn(s), scale);
   }
 
   @Override
   public byte[] getBytes(String s) throws SQLException {
-   throw new SQLException("This method has not been implemented yet.");
+    return getBytes(findColumn(s));
   }
 
   @Override
   public Date getDate(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getDate(findColumn(s));
   }
 
   @Override
   public Time getTime(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getTime(findColumn(s));
   }
 
   @Override
   public Timestamp getTimestamp(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getTimestamp(findColumn(s));
   }
 
   @Override
   public InputStream getAsciiStream(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getAsciiStream(findColumn(s));
   }
 
   @Override
@@ -220,7 +669,7 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public InputStream getBinaryStream(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getBinaryStream(findColumn(s));
   }
 
   @Override
@@ -255,117 +704,143 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public int findColumn(String columnLabel) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (columnNames != null) {
+      for (int i = 0; i < columnNames.length; i++) {
+        if (columnNames[i].equalsIgnoreCase(columnLabel)) {
+          return i + 1;
+        }
+      }
+    }
+    throw new SQLException("Unknown column: " + columnLabel);
   }
 
   @Override
   public Reader getCharacterStream(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    InputStream in = getBinaryStream(i);
+    return in == null ? null : new InputStreamReader(in, StandardCharsets.UTF_8);
   }
 
   @Override
   public Reader getCharacterStream(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getCharacterStream(findColumn(s));
   }
 
   @Override
   public BigDecimal getBigDecimal(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    checkCursor();
+    int slot = locateCell(i);
+    if (slot < 0) {
+      return null;
+    }
+    try {
+      return CsvScanner.parseDecimal(buf, bounds[slot], bounds[slot + 1], decimalScale(i - 1));
+    } catch (NumberFormatException e) {
+      throw new SQLException("Column " + i + " is not a decimal", e);
+    }
   }
 
   @Override
   public BigDecimal getBigDecimal(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getBigDecimal(findColumn(s));
   }
 
   @Override
   public boolean isBeforeFirst() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return cursor < 0 && visibleRows() > 0;
   }
 
   @Override
   public boolean isAfterLast() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    int count = visibleRows();
+    return count > 0 && cursor >= count;
   }
 
   @Override
   public boolean isFirst() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return cursor == 0 && visibleRows() > 0;
   }
 
   @Override
   public boolean isLast() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return cursor >= 0 && cursor == visibleRows() - 1;
   }
 
   @Override
   public void beforeFirst() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    scrollTo(-1);
   }
 
   @Override
   public void afterLast() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    scrollTo(Integer.MAX_VALUE);
   }
 
   @Override
   public boolean first() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return scrollTo(0);
   }
 
   @Override
   public boolean last() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return scrollTo(visibleRows() - 1);
   }
 
   @Override
   public int getRow() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return cursor >= 0 && cursor < visibleRows() ? cursor + 1 : 0;
   }
 
   @Override
   public boolean absolute(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (i == 0) {
+      return scrollTo(-1);
+    }
+    return scrollTo(i > 0 ? i - 1 : visibleRows() + i);
   }
 
   @Override
   public boolean relative(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return scrollTo((int) Math.max(-1, Math.min(Integer.MAX_VALUE, (long) cursor + i)));
   }
 
   @Override
   public boolean previous() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return scrollTo(cursor - 1);
   }
 
   @Override
   public void setFetchDirection(int i) throws SQLException {
-
+    if (i != FETCH_FORWARD && type == TYPE_FORWARD_ONLY) {
+      throw new SQLException("Result set is TYPE_FORWARD_ONLY");
+    }
   }
 
   @Override
   public int getFetchDirection() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return FETCH_FORWARD;
   }
 
   @Override
   public void setFetchSize(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (i < 0) {
+      throw new SQLException("Fetch size must not be negative: " + i);
+    }
+    fetchSize = i;
   }
 
   @Override
   public int getFetchSize() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return fetchSize;
   }
 
   @Override
   public int getType() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return type;
   }
 
   @Override
   public int getConcurrency() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return CONCUR_READ_ONLY;
   }
 
   @Override
@@ -635,7 +1110,12 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public Array getArray(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    int[] cell = nestedCell(i, '[');
+    if (cell == null) {
+      return null;
+    }
+    String[] arguments = NestedValues.typeArguments(NestedValues.unwrap(columnType(i - 1)));
+    return new ChdbArray(result, buf, cell[0], cell[1], arguments.length == 1 ? arguments[0] : null);
   }
 
   @Override
@@ -660,37 +1140,51 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public Array getArray(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getArray(findColumn(s));
   }
 
+  // With a calendar, stored wall-clock values are read as local times of the calendar's zone.
   @Override
   public Date getDate(int i, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    LocalDate value = getLocalDate(i);
+    if (value == null || calendar == null) {
+      return value == null ? null : Date.valueOf(value);
+    }
+    return new Date(value.atStartOfDay(calendar.getTimeZone().toZoneId()).toInstant().toEpochMilli());
   }
 
   @Override
   public Date getDate(String s, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getDate(findColumn(s), calendar);
   }
 
   @Override
   public Time getTime(int i, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    LocalTime value = getLocalTime(i);
+    if (value == null || calendar == null) {
+      return value == null ? null : Time.valueOf(value);
+    }
+    return new Time(value.atDate(LocalDate.EPOCH).atZone(calendar.getTimeZone().toZoneId()).toInstant()
+        .toEpochMilli());
   }
 
   @Override
   public Time getTime(String s, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getTime(findColumn(s), calendar);
   }
 
   @Override
   public Timestamp getTimestamp(int i, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    LocalDateTime value = getLocalDateTime(i);
+    if (value == null || calendar == null) {
+      return value == null ? null : Timestamp.from(getInstant(i));
+    }
+    return Timestamp.from(value.atZone(calendar.getTimeZone().toZoneId()).toInstant());
   }
 
   @Override
   public Timestamp getTimestamp(String s, Calendar calendar) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getTimestamp(findColumn(s), calendar);
   }
 
   @Override
@@ -770,7 +1264,7 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public boolean isClosed() throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return closed || result.isClosed();
   }
 
   @Override
@@ -835,12 +1329,12 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public Reader getNCharacterStream(int i) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getCharacterStream(i);
   }
 
   @Override
   public Reader getNCharacterStream(String s) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getCharacterStream(findColumn(s));
   }
 
   @Override
@@ -985,22 +1479,30 @@ public class ChdbResultSet implements ResultSet {
 
   @Override
   public <T> T getObject(int i, Class<T> aClass) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return CellReaders.read(this, i, aClass);
   }
 
   @Override
   public <T> T getObject(String s, Class<T> aClass) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return getObject(findColumn(s), aClass);
   }
 
   @Override
   public <T> T unwrap(Class<T> aClass) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    if (aClass.isInstance(this)) {
+      return aClass.cast(this);
+    }
+    if (aClass == ChdbBulkReader.class) {
+      int count = Math.min(rows().rowCount(), rowLimit);
+      return aClass.cast(new BulkColumnReader(result, buf, rows(), count,
+          Math.max(0, Math.min(cursor + 1, count))));
+    }
+    throw new SQLException("Not a wrapper for " + aClass.getName());
   }
 
   @Override
   public boolean isWrapperFor(Class<?> aClass) throws SQLException {
-    throw new SQLException("This method has not been implemented yet.");
+    return aClass.isInstance(this) || aClass == ChdbBulkReader.class;
   }
 
 }
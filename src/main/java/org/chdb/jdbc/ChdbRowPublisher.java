@@ -0,0 +1,187 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unicast publisher that runs a query on first demand and decodes its result buffer one batch at a time, only
+ * as far as the subscriber has requested. Decoding happens on the given executor, never on the caller of
+ * {@link Flow.Subscription#request(long)}.
+ */
+final class ChdbRowPublisher implements Flow.Publisher<RowBatch> {
+  private final String sql;
+  private final int batchSize;
+  private final Executor executor;
+  private final String[] settings;
+  private final QueryContext context;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  ChdbRowPublisher(String sql, int batchSize, Executor executor, String[] settings, QueryContext context) {
+    this.sql = sql;
+    this.batchSize = batchSize;
+    this.executor = executor;
+    this.settings = settings;
+    this.context = context;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super RowBatch> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    BatchSubscription subscription = new BatchSubscription(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(subscription);
+      subscription.fail(new IllegalStateException("Publisher for '" + sql + "' allows a single subscriber"));
+      return;
+    }
+    subscriber.onSubscribe(subscription);
+  }
+
+  private final class BatchSubscription implements Flow.Subscription, Runnable {
+    private final Flow.Subscriber<? super RowBatch> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+    private volatile boolean done;
+    private LocalResultV2 result;
+    private ByteBuffer buf;
+    private int position;
+    private long emitted;
+    private final int[] bounds = new int[32];
+
+    BatchSubscription(Flow.Subscriber<? super RowBatch> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (done) {
+        return;
+      }
+      if (n <= 0) {
+        fail(new IllegalArgumentException("non-positive subscription request: " + n));
+        return;
+      }
+      demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      done = true;
+      schedule();
+    }
+
+    // The error is signalled by the drain loop, so it never overlaps an onNext in flight.
+    void fail(Throwable failure) {
+      if (!done && error.compareAndSet(null, failure)) {
+        schedule();
+      }
+    }
+
+    private void schedule() {
+      if (wip.getAndIncrement() == 0) {
+        try {
+          executor.execute(this);
+        } catch (RuntimeException e) {
+          wip.set(0);
+          release();
+          if (!done) {
+            done = true;
+            subscriber.onError(e);
+          }
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+      do {
+        drain();
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void drain() {
+      Throwable failure = error.get();
+      if (failure != null && !done) {
+        done = true;
+        release();
+        subscriber.onError(failure);
+        return;
+      }
+      if (done) {
+        release();
+        return;
+      }
+      try {
+        if (result == null && demand.get() > 0) {
+          open();
+        }
+        while (!done && error.get() == null && demand.get() > 0) {
+          if (position >= buf.limit()) {
+            done = true;
+            release();
+            subscriber.onComplete();
+            return;
+          }
+          RowBatch batch = decodeBatch();
+          if (batch.size() == 0) {
+            continue;
+          }
+          demand.decrementAndGet();
+          subscriber.onNext(batch);
+        }
+      } catch (Throwable t) {
+        release();
+        if (!done) {
+          done = true;
+          subscriber.onError(t);
+        }
+      }
+      if (done) {
+        release();
+      }
+    }
+
+    private void open() throws SQLException {
+      context.memory().reserve(0);
+      result = ChdbStatement.query(sql, "CSV", settings, context);
+      buf = result.getBuf();
+      position = buf.position();
+    }
+
+    private RowBatch decodeBatch() {
+      int limit = buf.limit();
+      List<String[]> rows = new ArrayList<>(batchSize);
+      while (rows.size() < batchSize && position < limit) {
+        int end = CsvScanner.recordEnd(buf, position, limit);
+        if (end > position) {
+          rows.add(CsvScanner.decodeRecord(buf, position, end, bounds));
+        }
+        position = end + 1;
+      }
+      RowBatch batch = new RowBatch(emitted, rows);
+      emitted += rows.size();
+      return batch;
+    }
+
+    private void release() {
+      if (result != null) {
+        result.close();
+        result = null;
+        buf = null;
+      }
+    }
+  }
+}
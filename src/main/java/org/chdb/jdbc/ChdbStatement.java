@@ -1,34 +1,362 @@
 package org.chdb.jdbc;
 
-import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class ChdbStatement implements Statement {
+  static final String RESULT_FORMAT = "CSVWithNamesAndTypes";
+  static final String PARTITION = "{partition}";
+
+  // Native calls cannot be interrupted, so they run here while the calling thread waits with a deadline.
+  private static final ExecutorService NATIVE = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "chdb-query");
+    thread.setDaemon(true);
+    return thread;
+  });
+
   private ChdbConnection connection;
+  private int fetchSize;
+  private int maxRows;
+  private int resultSetType = ResultSet.TYPE_FORWARD_ONLY;
+  private volatile ChdbResultSet resultSet;
+  private int updateCount = -1;
+  private LocalResultV2 scriptResult;
+  private int[] scriptParts;
+  private int scriptPart;
+  private final List<ChdbResultSet> scriptResultSets = new ArrayList<>();
+  private final Map<String, String> settings = new LinkedHashMap<>();
+  private int queryTimeout;
+  private volatile CompletableFuture<LocalResultV2> running;
 
   public ChdbStatement(ChdbConnection connection) {
     this.connection = connection;
   }
 
+  ChdbStatement(ChdbConnection connection, int resultSetType, int resultSetConcurrency) throws SQLException {
+    if (resultSetType != ResultSet.TYPE_FORWARD_ONLY && resultSetType != ResultSet.TYPE_SCROLL_INSENSITIVE) {
+      throw new SQLException("Unsupported result set type: " + resultSetType);
+    }
+    if (resultSetConcurrency != ResultSet.CONCUR_READ_ONLY) {
+      throw new SQLException("Unsupported result set concurrency: " + resultSetConcurrency);
+    }
+    this.connection = connection;
+    this.resultSetType = resultSetType;
+  }
+
+  /** Overrides an engine setting of the connection for the queries of this statement; null drops the override. */
+  public void setSetting(String name, String value) throws SQLException {
+    if (!EngineSettings.isSettingName(name)) {
+      throw new SQLException("Invalid setting name: " + name);
+    }
+    if (value == null) {
+      settings.remove(name);
+    } else {
+      settings.put(name, value);
+    }
+  }
+
+  String[] engineSettings() {
+    Map<String, String> overrides = settings;
+    if (queryTimeout > 0) {
+      // The engine stops the query itself at the deadline, freeing its threads and memory.
+      overrides = new LinkedHashMap<>(settings);
+      overrides.putIfAbsent("max_execution_time", String.valueOf(queryTimeout));
+      overrides.putIfAbsent("timeout_overflow_mode", "throw");
+    }
+    return connection == null ? EngineSettings.toArguments(overrides, Map.of()) : connection.settings(overrides);
+  }
+
+  // SET only lasts for the native call running it, so the connection keeps the values for later calls.
+  private void trackSet(String sql) {
+    Map<String, String> assigned = EngineSettings.parseSet(sql);
+    if (assigned != null && connection != null) {
+      connection.applySettings(assigned);
+    }
+  }
+
   @Override
   public ResultSet executeQuery(String sql) throws SQLException {
-    LocalResultV2 result = ChdbJniUtil.executeQuery(sql);
-    System.out.println("sql: " + sql);
+    closeResults();
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    event.begin();
     try {
-      return new ChdbResultSet(result);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+      resultSet = open(sql);
+      event.succeeded = true;
+    } finally {
+      commit(event, sql, 1);
+    }
+    trackSet(sql);
+    return resultSet;
+  }
+
+  private void commit(QueryExecutionEvent event, String sql, int statements) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.fingerprint = QueryExecutionEvent.fingerprint(sql);
+      event.statements = statements;
+      event.paged = resultSet instanceof ChdbPagedResultSet;
+      event.queryTimeout = queryTimeout;
+      event.commit();
+    }
+  }
+
+  private ChdbResultSet open(String sql) throws SQLException {
+    // Keyset pages only hold part of the result, so scrollable result sets always read it whole.
+    if (fetchSize > 0 && resultSetType == ResultSet.TYPE_FORWARD_ONLY && connection != null
+        && connection.isKeysetPaging()) {
+      KeysetQuery keyset = KeysetQuery.parse(sql);
+      if (keyset != null) {
+        context().memory().reserve(timeoutMillis());
+        return ChdbPagedResultSet.open(keyset, fetchSize, maxRows, engineSettings(), context());
+      }
+    }
+    ChdbResultSet rs = new ChdbResultSet(run(KeysetQuery.limit(sql, maxRows)), true);
+    if (maxRows > 0) {
+      rs.limitRows(maxRows);
+    }
+    rs.setType(resultSetType);
+    return rs;
+  }
+
+  static LocalResultV2 query(String sql, String[] settings, QueryContext context) throws SQLException {
+    return query(sql, RESULT_FORMAT, settings, context);
+  }
+
+  // Makes the native call for sql with its event, slow log entry and memory tracking; an engine error is thrown,
+  // with the result freed.
+  static LocalResultV2 query(String sql, String format, String[] settings, QueryContext context)
+      throws SQLException {
+    NativeCallEvent event = new NativeCallEvent();
+    event.begin();
+    long start = System.nanoTime();
+    LocalResultV2 result = context.execute(sql, format, settings);
+    context.slowLog().record(sql, settings, System.nanoTime() - start, result);
+    event.end();
+    if (event.shouldCommit()) {
+      event.set(sql, format, result);
+      event.commit();
+    }
+    if (result == null) {
+      throw new SQLException("Query returned no result: " + sql);
+    }
+    String error = result.getErrorMessage();
+    if (error != null) {
+      result.close();
+      throw error.contains("TIMEOUT_EXCEEDED") ? new SQLTimeoutException(error) : new SQLException(error);
+    }
+    result.track(context.memory());
+    return result;
+  }
+
+  private QueryContext context() {
+    return connection == null ? QueryContext.DEFAULT : connection.context();
+  }
+
+  /**
+   * Starts {@code sql} on {@code executor}. Completing the returned future early, to time out or cancel the call,
+   * skips the native call if it has not started yet, and otherwise frees its result as soon as it arrives.
+   */
+  static CompletableFuture<LocalResultV2> submit(String sql, String[] settings, QueryContext context,
+                                                 Executor executor) {
+    CompletableFuture<LocalResultV2> call = new CompletableFuture<>();
+    executor.execute(() -> {
+      if (call.isDone()) {
+        return;
+      }
+      try {
+        LocalResultV2 result = query(sql, settings, context);
+        if (!call.complete(result)) {
+          result.close();
+        }
+      } catch (SQLException | RuntimeException e) {
+        call.completeExceptionally(e);
+      }
+    });
+    return call;
+  }
+
+  // Runs a native call for this statement, failing it once the query or network timeout passes or on cancel().
+  private LocalResultV2 run(String sql) throws SQLException {
+    context().memory().reserve(timeoutMillis());
+    return await(submit(sql, engineSettings(), context(), NATIVE));
+  }
+
+  private LocalResultV2 await(CompletableFuture<LocalResultV2> call) throws SQLException {
+    running = call;
+    long timeoutMillis = timeoutMillis();
+    try {
+      if (timeoutMillis == 0) {
+        return call.get();
+      }
+      try {
+        return call.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // Unless the call completed in the meantime, its result is freed when the engine returns it.
+        call.completeExceptionally(new SQLTimeoutException("Query timed out after " + timeoutMillis + " ms"));
+        return call.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      call.completeExceptionally(e);
+      throw new SQLException("Interrupted while waiting for the query", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+    } finally {
+      running = null;
+    }
+  }
+
+  /**
+   * Runs {@code sqlTemplate} once per partition, with {@code {partition}} replaced by the partition as it is, for
+   * example a day in {@code file('data/{partition}/*.parquet')}. The partitions run concurrently, each as a native
+   * call of its own, and their results are combined as {@code merge} describes into one result set. The query
+   * timeout and {@link #cancel} apply to the partitioned query as a whole.
+   */
+  public ResultSet executePartitioned(String sqlTemplate, List<String> partitions, ChdbMergeSpec merge)
+      throws SQLException {
+    if (!sqlTemplate.contains(PARTITION)) {
+      throw new SQLException("Query has no " + PARTITION + " placeholder: " + sqlTemplate);
+    }
+    if (partitions.isEmpty()) {
+      throw new SQLException("No partitions to query");
+    }
+    closeResults();
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    event.begin();
+    try {
+      ChdbResultSet rs = new ChdbResultSet(runPartitioned(sqlTemplate, partitions, merge), true);
+      if (maxRows > 0) {
+        rs.limitRows(maxRows);
+      }
+      rs.setType(resultSetType);
+      resultSet = rs;
+      event.succeeded = true;
+    } finally {
+      commit(event, sqlTemplate, partitions.size());
+    }
+    return resultSet;
+  }
+
+  private LocalResultV2 runPartitioned(String sqlTemplate, List<String> partitions, ChdbMergeSpec merge)
+      throws SQLException {
+    String[] settings = engineSettings();
+    List<CompletableFuture<LocalResultV2>> parts = new ArrayList<>();
+    CompletableFuture<LocalResultV2> call = new CompletableFuture<>();
+    // Failing the call, on timeout, cancel() or the failure of one partition, fails the partitions still running,
+    // whose results are then closed as they arrive. Those already done are closed by the handler below alone.
+    call.whenComplete((result, e) -> {
+      if (e != null) {
+        parts.forEach(part -> part.completeExceptionally(e));
+      }
+    });
+    SQLException failure = null;
+    try {
+      for (String partition : partitions) {
+        context().memory().reserve(timeoutMillis());
+        parts.add(submit(sqlTemplate.replace(PARTITION, partition), settings, context(), NATIVE));
+      }
+    } catch (SQLException e) {
+      failure = e;
+      call.completeExceptionally(e);
+    }
+    CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, e) -> {
+      List<LocalResultV2> results = new ArrayList<>();
+      for (CompletableFuture<LocalResultV2> part : parts) {
+        if (!part.isCompletedExceptionally()) {
+          results.add(part.join());
+        }
+      }
+      try {
+        if (e != null) {
+          call.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+        } else if (!call.isDone()) {
+          LocalResultV2 merged = merge(results, merge, context().memory());
+          if (!call.complete(merged)) {
+            merged.close();
+          }
+        }
+      } catch (SQLException | RuntimeException ex) {
+        call.completeExceptionally(ex);
+      } finally {
+        results.forEach(LocalResultV2::close);
+      }
+    });
+    if (failure != null) {
+      throw failure;
+    }
+    return await(call);
+  }
+
+  // Merges the results of the partitions into a heap copy, charged to memory like the results themselves.
+  static LocalResultV2 merge(List<LocalResultV2> results, ChdbMergeSpec merge, MemoryAccount memory)
+      throws SQLException {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    long rowsRead = 0;
+    long bytesRead = 0;
+    double elapsed = 0;
+    for (LocalResultV2 result : results) {
+      buffers.add(result.getBuf());
+      rowsRead += result.getRowsRead();
+      bytesRead += result.getBytesRead();
+      elapsed = Math.max(elapsed, result.getElapsed());
+    }
+    // The copy is garbage collected, so closing it only returns its bytes to the account.
+    LocalResultV2 merged = LocalResultV2.external(merge.merge(buffers), rowsRead, bytesRead, elapsed, () -> { });
+    merged.track(memory);
+    return merged;
+  }
+
+  private long timeoutMillis() throws SQLException {
+    long timeout = queryTimeout * 1000L;
+    int networkTimeout = connection == null ? 0 : connection.getNetworkTimeout();
+    if (networkTimeout > 0 && (timeout == 0 || networkTimeout < timeout)) {
+      timeout = networkTimeout;
+    }
+    return timeout;
+  }
+
+  /**
+   * Returns a publisher that runs {@code sql} when first requested and emits its rows in batches of at most
+   * {@code batchSize}, decoding each batch only when the subscriber has demand for it.
+   */
+  public Flow.Publisher<RowBatch> publish(String sql, int batchSize) throws SQLException {
+    return publish(sql, batchSize, ForkJoinPool.commonPool());
+  }
+
+  public Flow.Publisher<RowBatch> publish(String sql, int batchSize, Executor executor) throws SQLException {
+    if (batchSize <= 0) {
+      throw new SQLException("Batch size must be positive: " + batchSize);
     }
+    return new ChdbRowPublisher(sql, batchSize, executor, engineSettings(), context());
   }
 
   @Override
-  public int executeUpdate(String s) throws SQLException {
-    return 0;
+  public int executeUpdate(String sql) throws SQLException {
+    execute(sql);
+    return Math.max(updateCount, 0);
   }
 
   @Override
   public void close() throws SQLException {
-
+    cancel();
+    closeResults();
+    if (connection != null) {
+      connection.closed(this);
+    }
   }
 
   @Override
@@ -43,12 +371,15 @@ public class ChdbStatement implements Statement {
 
   @Override
   public int getMaxRows() throws SQLException {
-    return 0;
+    return maxRows;
   }
 
   @Override
   public void setMaxRows(int i) throws SQLException {
-
+    if (i < 0) {
+      throw new SQLException("Max rows must not be negative: " + i);
+    }
+    maxRows = i;
   }
 
   @Override
@@ -58,17 +389,27 @@ public class ChdbStatement implements Statement {
 
   @Override
   public int getQueryTimeout() throws SQLException {
-    return 0;
+    return queryTimeout;
   }
 
   @Override
   public void setQueryTimeout(int i) throws SQLException {
-
+    if (i < 0) {
+      throw new SQLException("Query timeout must not be negative: " + i);
+    }
+    queryTimeout = i;
   }
 
   @Override
   public void cancel() throws SQLException {
-
+    CompletableFuture<LocalResultV2> call = running;
+    if (call != null) {
+      call.completeExceptionally(new SQLException("Query was cancelled"));
+    }
+    ChdbResultSet rs = resultSet;
+    if (rs instanceof ChdbPagedResultSet) {
+      ((ChdbPagedResultSet) rs).cancelPrefetch();
+    }
   }
 
   @Override
@@ -86,24 +427,104 @@ public class ChdbStatement implements Statement {
 
   }
 
+  /**
+   * Executes one statement, or a script of statements separated by semicolons. A script runs in a single engine
+   * call, and its results are then visited in order through {@link #getResultSet}, {@link #getUpdateCount} and
+   * {@link #getMoreResults}. Statements without output report an update count of 0.
+   */
   @Override
-  public boolean execute(String s) throws SQLException {
-    return false;
+  public boolean execute(String sql) throws SQLException {
+    closeResults();
+    SqlScript script = SqlScript.parse(sql);
+    List<String> statements = script.getStatements();
+    if (statements.isEmpty()) {
+      throw new SQLException("No statement to execute");
+    }
+    QueryExecutionEvent event = new QueryExecutionEvent();
+    event.begin();
+    try {
+      if (statements.stream().allMatch(statement -> EngineSettings.parseSet(statement) != null)) {
+        // Nothing to run until a later query picks the settings up.
+        scriptParts = new int[statements.size() * 2];
+      } else if (statements.size() == 1) {
+        scriptResult = run(statements.get(0));
+        ByteBuffer buf = scriptResult.getBuf();
+        scriptParts = new int[] {buf.position(), buf.limit()};
+      } else {
+        scriptResult = run(script.framed());
+        try {
+          scriptParts = script.parts(scriptResult.getBuf());
+        } catch (SQLException e) {
+          closeResults();
+          throw e;
+        }
+      }
+      event.succeeded = true;
+    } finally {
+      commit(event, sql, statements.size());
+    }
+    statements.forEach(this::trackSet);
+    scriptPart = -1;
+    return nextResult(true);
+  }
+
+  // Moves to the output of the next statement of the script; the result sets share its native result, which is
+  // only freed once the statement closes its results.
+  private boolean nextResult(boolean closeCurrent) throws SQLException {
+    if (closeCurrent && resultSet != null) {
+      resultSet.close();
+    }
+    resultSet = null;
+    updateCount = -1;
+    if (scriptParts == null || ++scriptPart >= scriptParts.length / 2) {
+      return false;
+    }
+    int start = scriptParts[scriptPart * 2];
+    int end = scriptParts[scriptPart * 2 + 1];
+    if (start == end) {
+      updateCount = 0;
+      return false;
+    }
+    ChdbResultSet rs = new ChdbResultSet(LocalResultV2.part(scriptResult, start, end), true);
+    if (maxRows > 0) {
+      rs.limitRows(maxRows);
+    }
+    rs.setType(resultSetType);
+    scriptResultSets.add(rs);
+    resultSet = rs;
+    return true;
+  }
+
+  private void closeResults() throws SQLException {
+    if (resultSet != null) {
+      resultSet.close();
+      resultSet = null;
+    }
+    for (ChdbResultSet rs : scriptResultSets) {
+      rs.close();
+    }
+    scriptResultSets.clear();
+    if (scriptResult != null) {
+      scriptResult.close();
+      scriptResult = null;
+    }
+    scriptParts = null;
+    updateCount = -1;
   }
 
   @Override
   public ResultSet getResultSet() throws SQLException {
-    return null;
+    return resultSet;
   }
 
   @Override
   public int getUpdateCount() throws SQLException {
-    return 0;
+    return updateCount;
   }
 
   @Override
   public boolean getMoreResults() throws SQLException {
-    return false;
+    return nextResult(true);
   }
 
   @Override
@@ -118,22 +539,25 @@ public class ChdbStatement implements Statement {
 
   @Override
   public void setFetchSize(int i) throws SQLException {
-
+    if (i < 0) {
+      throw new SQLException("Fetch size must not be negative: " + i);
+    }
+    fetchSize = i;
   }
 
   @Override
   public int getFetchSize() throws SQLException {
-    return 0;
+    return fetchSize;
   }
 
   @Override
   public int getResultSetConcurrency() throws SQLException {
-    return 0;
+    return ResultSet.CONCUR_READ_ONLY;
   }
 
   @Override
   public int getResultSetType() throws SQLException {
-    return 0;
+    return resultSetType;
   }
 
   @Override
@@ -157,8 +581,13 @@ public class ChdbStatement implements Statement {
   }
 
   @Override
-  public boolean getMoreResults(int i) throws SQLException {
-    return false;
+  public boolean getMoreResults(int current) throws SQLException {
+    if (current == CLOSE_ALL_RESULTS) {
+      for (ChdbResultSet rs : scriptResultSets) {
+        rs.close();
+      }
+    }
+    return nextResult(current != KEEP_CURRENT_RESULT);
   }
 
   @Override
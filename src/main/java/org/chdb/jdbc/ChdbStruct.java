@@ -0,0 +1,53 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.sql.Struct;
+import java.util.Map;
+
+/** A Tuple cell, whose elements are decoded from its text in the result buffer when they are read. */
+final class ChdbStruct implements Struct {
+  private final LocalResultV2 owner;
+  private final ByteBuffer buf;
+  private final int start;
+  private final int end;
+  private final String type;
+
+  ChdbStruct(LocalResultV2 owner, ByteBuffer buf, int start, int end, String type) {
+    this.owner = owner;
+    this.buf = buf;
+    this.start = start;
+    this.end = end;
+    this.type = type;
+  }
+
+  @Override
+  public String getSQLTypeName() {
+    return type == null ? "Tuple" : type;
+  }
+
+  @Override
+  public Object[] getAttributes() throws SQLException {
+    NestedValues.checkOpen(owner);
+    int[] bounds = NestedValues.split(buf, start, end);
+    String[] types = NestedValues.typeArguments(type);
+    Object[] values = new Object[bounds.length / 2];
+    try {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = NestedValues.decode(owner, buf, bounds[i << 1], bounds[(i << 1) + 1],
+            i < types.length ? types[i] : null);
+      }
+    } catch (RuntimeException e) {
+      throw new SQLException("Malformed " + getSQLTypeName() + " value", e);
+    }
+    return values;
+  }
+
+  @Override
+  public Object[] getAttributes(Map<String, Class<?>> map) throws SQLException {
+    if (map != null && !map.isEmpty()) {
+      throw new SQLException("Custom type maps are not supported");
+    }
+    return getAttributes();
+  }
+}
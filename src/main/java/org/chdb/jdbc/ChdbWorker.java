@@ -0,0 +1,195 @@
+package org.chdb.jdbc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Entry point of a worker process of {@link WorkerPool}. The worker connects back to the pool over the Unix domain
+ * socket named by its first argument and runs the queries it receives on its own engine. Each result is written
+ * to a file in the directory named by its second argument, readable by this user only, which the pool maps
+ * rather than reading the result through the socket. The worker exits once the pool closes the socket.
+ */
+public final class ChdbWorker {
+  static final byte QUERY = 0;
+  static final byte PING = 1;
+
+  static final byte OK = 0;
+  static final byte ERROR = 1;
+  static final byte PONG = 2;
+
+  private static final FileAttribute<Set<PosixFilePermission>> RESULT_PERMISSIONS =
+      PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+
+  private ChdbWorker() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    serve(args[0], Paths.get(args[1]), QueryContext.IN_PROCESS);
+    // Engine threads may still be running; the pool is gone, so nothing is waiting for them.
+    System.exit(0);
+  }
+
+  // Answers the pool on socket until it closes the connection, running queries on engine.
+  static void serve(String socket, Path results, QueryContext.Engine engine) throws IOException {
+    ExecutorService queries = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "chdb-worker-query");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(input(channel)));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output(channel)));
+      while (true) {
+        long id;
+        try {
+          id = in.readLong();
+        } catch (EOFException e) {
+          break;
+        }
+        // Pings are answered here, so a worker busy with long queries still passes health checks.
+        if (in.readByte() == PING) {
+          synchronized (out) {
+            out.writeLong(id);
+            out.writeByte(PONG);
+            out.flush();
+          }
+          continue;
+        }
+        String sql = readString(in);
+        String format = readString(in);
+        String[] settings = new String[in.readInt()];
+        for (int i = 0; i < settings.length; i++) {
+          settings[i] = readString(in);
+        }
+        queries.execute(() -> run(out, results, engine, id, sql, format, settings));
+      }
+    }
+  }
+
+  // Every query is answered, whatever goes wrong; the pool would otherwise wait for it until the worker dies.
+  private static void run(DataOutputStream out, Path results, QueryContext.Engine engine, long id, String sql,
+                          String format, String[] settings) {
+    LocalResultV2 result = null;
+    Path file = null;
+    try {
+      result = engine.execute(sql, format, settings);
+      if (result == null || result.getErrorMessage() != null) {
+        error(out, id, result == null ? "Query returned no result: " + sql : result.getErrorMessage());
+        return;
+      }
+      ByteBuffer buf = result.getBuf().duplicate();
+      long length = buf.remaining();
+      file = Files.createFile(results.resolve("chdb-" + ProcessHandle.current().pid() + "-" + id + ".result"),
+          RESULT_PERMISSIONS);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        while (buf.hasRemaining()) {
+          channel.write(buf);
+        }
+      }
+      synchronized (out) {
+        out.writeLong(id);
+        out.writeByte(OK);
+        writeString(out, file.toString());
+        out.writeLong(length);
+        out.writeLong(result.getRowsRead());
+        out.writeLong(result.getBytesRead());
+        out.writeDouble(result.getElapsed());
+        out.flush();
+      }
+      // The pool owns the file now.
+      file = null;
+    } catch (Throwable e) {
+      try {
+        error(out, id, "Worker could not run the query: " + e);
+      } catch (IOException ignored) {
+        // The socket is gone, and the worker exits once the main loop sees it.
+      }
+    } finally {
+      if (file != null) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+          // The pool removes its directory when it closes.
+        }
+      }
+      if (result != null) {
+        result.close();
+      }
+    }
+  }
+
+  private static void error(DataOutputStream out, long id, String message) throws IOException {
+    synchronized (out) {
+      out.writeLong(id);
+      out.writeByte(ERROR);
+      writeString(out, message);
+      out.flush();
+    }
+  }
+
+  static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  static void writeString(DataOutputStream out, String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  // Streams over the channel itself, so that one thread can read while another writes.
+  static InputStream input(SocketChannel channel) {
+    return new InputStream() {
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return len == 0 ? 0 : channel.read(ByteBuffer.wrap(b, off, len));
+      }
+    };
+  }
+
+  static OutputStream output(SocketChannel channel) {
+    return new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(b, off, len);
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+      }
+    };
+  }
+}
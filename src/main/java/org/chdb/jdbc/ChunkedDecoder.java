@@ -0,0 +1,288 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Decodes a large CSV result in parallel. The buffer is cut into byte ranges, the quote parity of every range is
+ * counted concurrently, and each range is then moved forward to the first record boundary that lies outside a
+ * quoted field. The resulting chunks are indexed and converted into typed column arrays on the executor, in
+ * order, so the first chunk is ready while later ones are still being decoded. The buffer may be freed once the
+ * result is closed, so {@link #close} stops decoding and waits for the chunks still reading it.
+ */
+final class ChunkedDecoder {
+  static final int PARALLEL_THRESHOLD = 16 << 20;
+  static final int CHUNK_BYTES = 4 << 20;
+
+  static final byte STRING = 0;
+  static final byte LONG = 1;
+  static final byte DOUBLE = 2;
+
+  private final ByteBuffer buf;
+  private final byte[] kinds;
+  private final boolean[] nullable;
+  private final String[] types;
+  private final RowDecoder rowDecoder;
+  private final List<CompletableFuture<Chunk>> chunks;
+  // Held for reading while a chunk is decoded, and for writing by close().
+  private final ReadWriteLock reading = new ReentrantReadWriteLock();
+  private volatile boolean closed;
+
+  private ChunkedDecoder(ByteBuffer buf, String[] types) {
+    this.buf = buf;
+    this.kinds = new byte[types.length];
+    this.nullable = new boolean[types.length];
+    this.types = types;
+    for (int i = 0; i < types.length; i++) {
+      String type = unwrap(types[i], "LowCardinality(");
+      nullable[i] = type.startsWith("Nullable(");
+      kinds[i] = kindOf(unwrap(type, "Nullable("));
+    }
+    this.rowDecoder = RowDecoders.forSchema(kinds, nullable);
+    this.chunks = new ArrayList<>();
+  }
+
+  static boolean worthwhile(ByteBuffer buf, int from) {
+    return buf.limit() - from >= PARALLEL_THRESHOLD;
+  }
+
+  /** Starts decoding the records of {@code buf} from {@code from}, whose columns have the given types. */
+  static ChunkedDecoder start(ByteBuffer buf, int from, String[] types, Executor executor) {
+    ChunkedDecoder decoder = new ChunkedDecoder(buf, types);
+    int limit = buf.limit();
+    int ranges = Math.max(1, (limit - from) / CHUNK_BYTES);
+    int[] rangeStarts = new int[ranges + 1];
+    for (int k = 0; k <= ranges; k++) {
+      rangeStarts[k] = (int) (from + (long) (limit - from) * k / ranges);
+    }
+    boolean[] odd = new boolean[ranges];
+    IntStream.range(0, ranges).parallel()
+        .forEach(k -> odd[k] = (countQuotes(buf, rangeStarts[k], rangeStarts[k + 1]) & 1) != 0);
+    int[] boundaries = new int[ranges + 1];
+    boundaries[0] = from;
+    boundaries[ranges] = limit;
+    boolean quoted = false;
+    for (int k = 1; k < ranges; k++) {
+      quoted ^= odd[k - 1];
+      boundaries[k] = alignToRecord(buf, rangeStarts[k], limit, quoted);
+    }
+    for (int k = 0; k < ranges; k++) {
+      int start = Math.min(boundaries[k], limit);
+      int end = Math.max(start, Math.min(boundaries[k + 1], limit));
+      decoder.chunks.add(CompletableFuture.supplyAsync(() -> decoder.decodeIfOpen(start, end), executor));
+    }
+    return decoder;
+  }
+
+  /**
+   * Stops decoding before the buffer is freed: chunks not yet started are cancelled and running ones stop at their
+   * next record. Returns once no chunk reads the buffer any more.
+   */
+  void close() {
+    closed = true;
+    for (CompletableFuture<Chunk> chunk : chunks) {
+      chunk.cancel(false);
+    }
+    reading.writeLock().lock();
+    reading.writeLock().unlock();
+  }
+
+  private static int countQuotes(ByteBuffer buf, int from, int to) {
+    return CsvScanner.KERNEL.count(buf, from, to, CsvScanner.QUOTE);
+  }
+
+  // Returns the position after the first unquoted line feed at or after from.
+  private static int alignToRecord(ByteBuffer buf, int from, int limit, boolean quoted) {
+    int i = from;
+    if (quoted) {
+      i = CsvScanner.KERNEL.indexOf(buf, from, limit, CsvScanner.QUOTE) + 1;
+    }
+    int end = CsvScanner.recordEnd(buf, Math.min(i, limit), limit);
+    return end >= limit ? limit : end + 1;
+  }
+
+  private static String unwrap(String type, String wrapper) {
+    return type.startsWith(wrapper) && type.endsWith(")")
+        ? type.substring(wrapper.length(), type.length() - 1) : type;
+  }
+
+  private static byte kindOf(String type) {
+    switch (type) {
+      case "Int8":
+      case "Int16":
+      case "Int32":
+      case "Int64":
+      case "UInt8":
+      case "UInt16":
+      case "UInt32":
+        return LONG;
+      case "Float32":
+      case "Float64":
+        return DOUBLE;
+      default:
+        return STRING;
+    }
+  }
+
+  int chunkCount() {
+    return chunks.size();
+  }
+
+  /** Returns chunk {@code k}, waiting for it to be decoded if necessary. */
+  Chunk chunk(int k) {
+    return chunks.get(k).join();
+  }
+
+  /** Stitches the row offsets of all chunks into one index, waiting for every chunk. */
+  RowIndex index() {
+    int total = 0;
+    for (int k = 0; k < chunks.size(); k++) {
+      total += chunk(k).rowCount;
+    }
+    int[] starts = new int[total + 1];
+    int row = 0;
+    for (int k = 0; k < chunks.size(); k++) {
+      Chunk chunk = chunk(k);
+      System.arraycopy(chunk.starts, 0, starts, row, chunk.rowCount);
+      row += chunk.rowCount;
+      starts[row] = chunk.starts[chunk.rowCount];
+    }
+    return RowIndex.of(starts, total);
+  }
+
+  private Chunk decodeIfOpen(int from, int to) {
+    reading.readLock().lock();
+    try {
+      if (closed) {
+        throw new CancellationException("Result closed");
+      }
+      return decode(from, to);
+    } finally {
+      reading.readLock().unlock();
+    }
+  }
+
+  private Chunk decode(int from, int to) {
+    ResultDecodeEvent event = new ResultDecodeEvent();
+    event.begin();
+    int columns = kinds.length;
+    int capacity = 1024;
+    int[] starts = new int[capacity + 1];
+    Object[] values = new Object[columns];
+    boolean[][] nulls = new boolean[columns][];
+    for (int c = 0; c < columns; c++) {
+      values[c] = newColumn(kinds[c], capacity);
+      nulls[c] = nullable[c] ? new boolean[capacity] : null;
+    }
+    int[] bounds = new int[Math.max(2, columns * 2)];
+    StringDictionary[] dictionaries = new StringDictionary[columns];
+    for (int c = 0; c < columns; c++) {
+      dictionaries[c] = kinds[c] == STRING ? StringDictionary.forType(types[c]) : null;
+    }
+    int count = 0;
+    int position = from;
+    while (position < to) {
+      if (closed) {
+        throw new CancellationException("Result closed");
+      }
+      int end = CsvScanner.recordEnd(buf, position, to);
+      if (count == capacity) {
+        capacity <<= 1;
+        starts = Arrays.copyOf(starts, capacity + 1);
+        for (int c = 0; c < columns; c++) {
+          values[c] = grow(values[c], capacity);
+          nulls[c] = nulls[c] == null ? null : Arrays.copyOf(nulls[c], capacity);
+        }
+      }
+      starts[count] = position;
+      int fields = CsvScanner.splitFields(buf, position, end, bounds);
+      rowDecoder.decodeRow(buf, bounds, fields, values, nulls, dictionaries, count);
+      count++;
+      position = end + 1;
+    }
+    starts[count] = position;
+    event.end();
+    if (event.shouldCommit()) {
+      event.mode = "chunk";
+      event.bytes = to - from;
+      event.rows = count;
+      event.columns = columns;
+      event.commit();
+    }
+    return new Chunk(count, starts, kinds, values, nulls);
+  }
+
+  private static Object newColumn(byte kind, int capacity) {
+    switch (kind) {
+      case LONG:
+        return new long[capacity];
+      case DOUBLE:
+        return new double[capacity];
+      default:
+        return new String[capacity];
+    }
+  }
+
+  private static Object grow(Object column, int capacity) {
+    if (column instanceof long[]) {
+      return Arrays.copyOf((long[]) column, capacity);
+    }
+    if (column instanceof double[]) {
+      return Arrays.copyOf((double[]) column, capacity);
+    }
+    return Arrays.copyOf((String[]) column, capacity);
+  }
+
+  /** The decoded rows of one chunk; row numbers are local to the chunk. */
+  static final class Chunk {
+    final int rowCount;
+    private final int[] starts;
+    private final byte[] kinds;
+    private final Object[] values;
+    private final boolean[][] nulls;
+
+    Chunk(int rowCount, int[] starts, byte[] kinds, Object[] values, boolean[][] nulls) {
+      this.rowCount = rowCount;
+      this.starts = starts;
+      this.kinds = kinds;
+      this.values = values;
+      this.nulls = nulls;
+    }
+
+    int start(int row) {
+      return starts[row];
+    }
+
+    int end(int row) {
+      return starts[row + 1] - 1;
+    }
+
+    byte kind(int column) {
+      return column >= 0 && column < kinds.length ? kinds[column] : STRING;
+    }
+
+    boolean isNull(int column, int row) {
+      return nulls[column] != null && nulls[column][row];
+    }
+
+    long getLong(int column, int row) {
+      return ((long[]) values[column])[row];
+    }
+
+    double getDouble(int column, int row) {
+      return ((double[]) values[column])[row];
+    }
+
+    String getString(int column, int row) {
+      return ((String[]) values[column])[row];
+    }
+  }
+}
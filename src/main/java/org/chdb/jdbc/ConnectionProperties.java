@@ -0,0 +1,50 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Reads the numeric and enumerated connection properties of the driver. A malformed value fails the connection
+ * with an SQLException naming the property and its value.
+ */
+final class ConnectionProperties {
+  private ConnectionProperties() {
+  }
+
+  static long getLong(Properties info, String name, long defaultValue) throws SQLException {
+    String value = info == null ? null : info.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new SQLException("Connection property " + name + " must be an integer: " + value, e);
+    }
+  }
+
+  static int getInt(Properties info, String name, int defaultValue) throws SQLException {
+    long value = getLong(info, name, defaultValue);
+    if (value != (int) value) {
+      throw new SQLException("Connection property " + name + " is out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  /** Returns the value of {@code name} in lower case, which must be one of {@code allowed}. */
+  static String getChoice(Properties info, String name, String defaultValue, String... allowed)
+      throws SQLException {
+    String value = info == null ? null : info.getProperty(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    String choice = value.trim().toLowerCase(Locale.ROOT);
+    if (!Arrays.asList(allowed).contains(choice)) {
+      throw new SQLException("Connection property " + name + " must be one of " + String.join(", ", allowed) + ": "
+          + value);
+    }
+    return choice;
+  }
+}
@@ -0,0 +1,275 @@
+package org.chdb.jdbc;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Record and field boundary scanning over the CSV text produced by the engine. All offsets are absolute
+ * positions in the buffer, so scanning never moves the buffer's position and the buffer can be shared.
+ */
+final class CsvScanner {
+  static final byte QUOTE = '"';
+  static final byte COMMA = ',';
+  static final byte LF = '\n';
+  static final byte CR = '\r';
+
+  static final ScanKernel KERNEL = ScanKernel.select();
+
+  private CsvScanner() {
+  }
+
+  /**
+   * Returns the offset of the line feed that terminates the record starting at {@code from}, or {@code limit}
+   * if the record is not terminated. Line feeds inside quoted fields do not end a record.
+   */
+  static int recordEnd(ByteBuffer buf, int from, int limit) {
+    return KERNEL.recordEnd(buf, from, limit);
+  }
+
+  /**
+   * Splits the record {@code [start, end)} into fields, storing start/end pairs into {@code bounds}. Returns the
+   * number of fields in the record, which may exceed {@code bounds.length / 2}; in that case only the leading
+   * fields are stored and the caller should retry with a larger array.
+   */
+  static int splitFields(ByteBuffer buf, int start, int end, int[] bounds) {
+    if (end > start && buf.get(end - 1) == CR) {
+      end--;
+    }
+    return KERNEL.splitFields(buf, start, end, bounds);
+  }
+
+  /**
+   * Stores the bounds of field {@code index} of the record {@code [start, end)} into {@code out}, scanning only as
+   * far as that field. Returns false if the record has fewer fields.
+   */
+  static boolean locateField(ByteBuffer buf, int start, int end, int index, int[] out) {
+    if (end > start && buf.get(end - 1) == CR) {
+      end--;
+    }
+    int fieldStart = start;
+    int field = 0;
+    int i = start;
+    while (true) {
+      i = KERNEL.indexOfEither(buf, i, end, QUOTE, COMMA);
+      if (i >= end) {
+        break;
+      }
+      if (buf.get(i) == COMMA) {
+        if (field == index) {
+          out[0] = fieldStart;
+          out[1] = i;
+          return true;
+        }
+        field++;
+        fieldStart = ++i;
+      } else {
+        i = KERNEL.indexOf(buf, i + 1, end, QUOTE) + 1;
+      }
+    }
+    out[0] = fieldStart;
+    out[1] = end;
+    return field == index;
+  }
+
+  static int store(int[] bounds, int count, int start, int end) {
+    int slot = count << 1;
+    if (slot + 1 < bounds.length) {
+      bounds[slot] = start;
+      bounds[slot + 1] = end;
+    }
+    return count + 1;
+  }
+
+  /** Returns true if {@code [start, end)} holds the unquoted {@code \N} null marker. */
+  static boolean isNull(ByteBuffer buf, int start, int end) {
+    return end - start == 2 && buf.get(start) == '\\' && buf.get(start + 1) == 'N';
+  }
+
+  /** Decodes the field {@code [start, end)}, removing enclosing quotes and doubled quote escapes. */
+  static String decodeField(ByteBuffer buf, int start, int end) {
+    if (isNull(buf, start, end)) {
+      return null;
+    }
+    if (end - start >= 2 && buf.get(start) == QUOTE && buf.get(end - 1) == QUOTE) {
+      start++;
+      end--;
+      if (KERNEL.indexOf(buf, start, end, QUOTE) < end) {
+        byte[] bytes = new byte[end - start];
+        int n = 0;
+        for (int i = start; i < end; i++) {
+          byte b = buf.get(i);
+          bytes[n++] = b;
+          if (b == QUOTE && i + 1 < end && buf.get(i + 1) == QUOTE) {
+            i++;
+          }
+        }
+        return text(bytes, n);
+      }
+    }
+    byte[] bytes = new byte[end - start];
+    buf.get(start, bytes);
+    return text(bytes, bytes.length);
+  }
+
+  // ASCII text is copied straight into a Latin-1 string, skipping the UTF-8 decoder.
+  private static String text(byte[] bytes, int length) {
+    for (int i = 0; i < length; i++) {
+      if (bytes[i] < 0) {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+      }
+    }
+    return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /** Parses an integer field in place, without decoding it to a String first. */
+  static long parseLong(ByteBuffer buf, int start, int end) {
+    if (end - start >= 2 && buf.get(start) == QUOTE && buf.get(end - 1) == QUOTE) {
+      start++;
+      end--;
+    }
+    if (start >= end) {
+      throw new NumberFormatException("empty integer field");
+    }
+    boolean negative = buf.get(start) == '-';
+    int i = negative || buf.get(start) == '+' ? start + 1 : start;
+    if (i >= end) {
+      throw new NumberFormatException("malformed integer field");
+    }
+    // Accumulates negatively, as Long.parseLong does, so Long.MIN_VALUE parses and anything beyond the range fails.
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = buf.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("malformed integer field");
+      }
+      if (value < limit / 10 || value * 10 < limit + digit) {
+        throw new NumberFormatException("integer field out of range");
+      }
+      value = value * 10 - digit;
+    }
+    return negative ? value : -value;
+  }
+
+  private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * Parses a floating point field in place. Plain decimals with at most 15 significant digits and a small scale
+   * are computed exactly from their digits; anything else goes through {@link Double#parseDouble}.
+   */
+  static double parseDouble(ByteBuffer buf, int start, int end) {
+    int i = start;
+    boolean negative = i < end && buf.get(i) == '-';
+    if (negative || i < end && buf.get(i) == '+') {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      byte b = buf.get(i);
+      if (b >= '0' && b <= '9') {
+        if (mantissa != 0 || b != '0') {
+          digits++;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (fraction) {
+          scale++;
+        }
+      } else if (b == '.' && !fraction) {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    if (i == end && digits <= 15 && scale < POWERS_OF_TEN.length && i > start + (negative ? 1 : 0)) {
+      double value = mantissa / POWERS_OF_TEN[scale];
+      return negative ? -value : value;
+    }
+    return parseDouble(decodeField(buf, start, end));
+  }
+
+  /** Parses a floating point value, accepting the {@code inf} and {@code nan} spellings of the engine. */
+  static double parseDouble(String value) {
+    switch (value) {
+      case "inf":
+      case "+inf":
+        return Double.POSITIVE_INFINITY;
+      case "-inf":
+        return Double.NEGATIVE_INFINITY;
+      case "nan":
+      case "-nan":
+        return Double.NaN;
+      default:
+        return Double.parseDouble(value);
+    }
+  }
+
+  private static final long[] LONG_POWERS_OF_TEN = {
+      1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+      10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+      1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+  };
+
+  /**
+   * Parses a decimal field in place at {@code scale}, or at the scale of its text when {@code scale} is negative.
+   * Values of up to 18 digits, which covers Decimal32 and Decimal64, are built from an unscaled long; wider
+   * values and exponents go through the {@link BigDecimal} parser.
+   */
+  static BigDecimal parseDecimal(ByteBuffer buf, int start, int end, int scale) {
+    if (end - start >= 2 && buf.get(start) == QUOTE && buf.get(end - 1) == QUOTE) {
+      start++;
+      end--;
+    }
+    int i = start;
+    boolean negative = i < end && buf.get(i) == '-';
+    if (negative || i < end && buf.get(i) == '+') {
+      i++;
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      byte b = buf.get(i);
+      if (b >= '0' && b <= '9') {
+        unscaled = unscaled * 10 + (b - '0');
+        digits++;
+        if (fraction) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && !fraction) {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    int target = scale < 0 ? fractionDigits : scale;
+    if (i == end && digits > 0 && digits <= 18 && fractionDigits <= target
+        && digits + target - fractionDigits <= 18) {
+      unscaled *= LONG_POWERS_OF_TEN[target - fractionDigits];
+      return BigDecimal.valueOf(negative ? -unscaled : unscaled, target);
+    }
+    BigDecimal value = new BigDecimal(decodeField(buf, start, end));
+    return scale < 0 || value.scale() == scale ? value : value.setScale(scale, RoundingMode.HALF_UP);
+  }
+
+  /** Decodes every field of the record {@code [start, end)}. */
+  static String[] decodeRecord(ByteBuffer buf, int start, int end, int[] bounds) {
+    int count = splitFields(buf, start, end, bounds);
+    if (count * 2 > bounds.length) {
+      return decodeRecord(buf, start, end, new int[count * 2]);
+    }
+    String[] fields = new String[count];
+    for (int i = 0; i < count; i++) {
+      fields[i] = decodeField(buf, bounds[i << 1], bounds[(i << 1) + 1]);
+    }
+    return fields;
+  }
+}
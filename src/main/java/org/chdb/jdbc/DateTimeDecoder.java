@@ -0,0 +1,161 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Decodes Date, Date32, DateTime and DateTime64 cells of one column straight from their bytes. Dates are cached
+ * by day number and whole-second date-times by their local second, in small direct-mapped caches, so columns
+ * with repeating or clustered values mostly return cached instances. Instants use the column's time zone
+ * parameter, or the default zone when the type has none. Not thread-safe.
+ */
+final class DateTimeDecoder {
+  private static final int CACHE_SIZE = 1024;
+  private static final int MASK = CACHE_SIZE - 1;
+  private static final long SECONDS_PER_DAY = 86_400L;
+
+  private final ZoneId zone;
+  private final long[] dayKeys = new long[CACHE_SIZE];
+  private final LocalDate[] days = new LocalDate[CACHE_SIZE];
+  private final long[] secondKeys = new long[CACHE_SIZE];
+  private final LocalDateTime[] dateTimes = new LocalDateTime[CACHE_SIZE];
+  private final long[] instantKeys = new long[CACHE_SIZE];
+  private final Instant[] instants = new Instant[CACHE_SIZE];
+
+  private DateTimeDecoder(ZoneId zone) {
+    this.zone = zone;
+    Arrays.fill(dayKeys, Long.MIN_VALUE);
+    Arrays.fill(secondKeys, Long.MIN_VALUE);
+    Arrays.fill(instantKeys, Long.MIN_VALUE);
+  }
+
+  /** A decoder for a column of the given ClickHouse type, e.g. {@code DateTime64(3, 'UTC')}. */
+  static DateTimeDecoder forType(String type) {
+    ZoneId zone = ZoneId.systemDefault();
+    int quote = type == null ? -1 : type.indexOf('\'');
+    if (quote >= 0) {
+      int close = type.indexOf('\'', quote + 1);
+      if (close > quote) {
+        try {
+          zone = ZoneId.of(type.substring(quote + 1, close));
+        } catch (DateTimeException e) {
+          // Unknown to java.time: keep the default zone.
+        }
+      }
+    }
+    return new DateTimeDecoder(zone);
+  }
+
+  ZoneId getZone() {
+    return zone;
+  }
+
+  LocalDate date(ByteBuffer buf, int start, int end) {
+    if (end - start >= 2 && buf.get(start) == CsvScanner.QUOTE) {
+      start++;
+      end--;
+    }
+    if (end - start < 10 || buf.get(start + 4) != '-' || buf.get(start + 7) != '-') {
+      return LocalDate.parse(CsvScanner.decodeField(buf, start, end).substring(0, 10));
+    }
+    long epochDay = epochDay(digits(buf, start, 4), digits(buf, start + 5, 2), digits(buf, start + 8, 2));
+    int slot = (int) epochDay & MASK;
+    if (dayKeys[slot] != epochDay) {
+      days[slot] = LocalDate.ofEpochDay(epochDay);
+      dayKeys[slot] = epochDay;
+    }
+    return days[slot];
+  }
+
+  LocalDateTime dateTime(ByteBuffer buf, int start, int end) {
+    if (end - start >= 2 && buf.get(start) == CsvScanner.QUOTE) {
+      start++;
+      end--;
+    }
+    LocalDate date = date(buf, start, end);
+    if (end - start == 10) {
+      return cachedDateTime(date.toEpochDay() * SECONDS_PER_DAY, date, 0);
+    }
+    if (end - start < 19 || buf.get(start + 13) != ':' || buf.get(start + 16) != ':') {
+      return LocalDateTime.parse(CsvScanner.decodeField(buf, start, end).replace(' ', 'T'));
+    }
+    int secondOfDay = digits(buf, start + 11, 2) * 3600 + digits(buf, start + 14, 2) * 60
+        + digits(buf, start + 17, 2);
+    int nanos = end - start > 20 && buf.get(start + 19) == '.' ? nanos(buf, start + 20, end) : 0;
+    if (nanos != 0) {
+      return LocalDateTime.of(date, LocalTime.ofNanoOfDay(secondOfDay * 1_000_000_000L + nanos));
+    }
+    return cachedDateTime(date.toEpochDay() * SECONDS_PER_DAY + secondOfDay, date, secondOfDay);
+  }
+
+  Instant instant(ByteBuffer buf, int start, int end) {
+    LocalDateTime dateTime = dateTime(buf, start, end);
+    if (dateTime.getNano() != 0) {
+      return dateTime.atZone(zone).toInstant();
+    }
+    long key = dateTime.toLocalDate().toEpochDay() * SECONDS_PER_DAY + dateTime.toLocalTime().toSecondOfDay();
+    int slot = (int) key & MASK;
+    if (instantKeys[slot] != key) {
+      instants[slot] = dateTime.atZone(zone).toInstant();
+      instantKeys[slot] = key;
+    }
+    return instants[slot];
+  }
+
+  LocalTime time(ByteBuffer buf, int start, int end) {
+    if (end - start >= 2 && buf.get(start) == CsvScanner.QUOTE) {
+      start++;
+      end--;
+    }
+    if (end - start == 8 && buf.get(start + 2) == ':') {
+      return LocalTime.of(digits(buf, start, 2), digits(buf, start + 3, 2), digits(buf, start + 6, 2));
+    }
+    return dateTime(buf, start, end).toLocalTime();
+  }
+
+  private LocalDateTime cachedDateTime(long key, LocalDate date, int secondOfDay) {
+    int slot = (int) key & MASK;
+    if (secondKeys[slot] != key) {
+      dateTimes[slot] = LocalDateTime.of(date, LocalTime.ofSecondOfDay(secondOfDay));
+      secondKeys[slot] = key;
+    }
+    return dateTimes[slot];
+  }
+
+  private static int digits(ByteBuffer buf, int start, int count) {
+    int value = 0;
+    for (int i = start; i < start + count; i++) {
+      int digit = buf.get(i) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new DateTimeException("Malformed date or time value");
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static int nanos(ByteBuffer buf, int start, int end) {
+    int count = Math.min(end - start, 9);
+    int value = digits(buf, start, count);
+    for (int i = count; i < 9; i++) {
+      value *= 10;
+    }
+    return value;
+  }
+
+  // Days since 1970-01-01 of a proleptic Gregorian date (Howard Hinnant's days_from_civil).
+  private static long epochDay(int year, int month, int day) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146_097 + dayOfEra - 719_468;
+  }
+}
@@ -0,0 +1,114 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Engine settings such as {@code max_threads} or {@code max_memory_usage}. Every native call starts a fresh engine
+ * invocation, so settings from connection properties and earlier {@code SET} statements are passed along with
+ * each query as {@code --name=value} arguments. Connection properties only become settings when named
+ * {@code chdb.setting.<name>}, and names of the engine options the driver sets itself are refused.
+ */
+final class EngineSettings {
+  static final String PREFIX = "chdb.setting.";
+
+  private static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final Pattern SET = Pattern.compile("(?is)^SET\\s+.*");
+  // Command line options of the engine call that the driver controls, rather than query settings.
+  private static final Set<String> RESERVED = Set.of("query", "queries_file", "path", "format", "output_format",
+      "input_format", "multiquery", "multiline", "config", "config_file", "user", "password");
+
+  private EngineSettings() {
+  }
+
+  /** Returns true if {@code name} can be an engine setting the driver passes along. */
+  static boolean isSettingName(String name) {
+    return NAME.matcher(name).matches() && !RESERVED.contains(name.toLowerCase(Locale.ROOT));
+  }
+
+  /** Returns the engine settings named by {@code chdb.setting.*} properties of {@code info}. */
+  static Map<String, String> fromProperties(Properties info) throws SQLException {
+    Map<String, String> settings = new LinkedHashMap<>();
+    if (info != null) {
+      for (String property : info.stringPropertyNames()) {
+        if (property.startsWith(PREFIX)) {
+          String name = property.substring(PREFIX.length());
+          if (!isSettingName(name)) {
+            throw new SQLException("Invalid setting name: " + property);
+          }
+          settings.put(name, info.getProperty(property));
+        }
+      }
+    }
+    return settings;
+  }
+
+  /**
+   * Returns the settings assigned by a {@code SET a = 1, b = 'x'} statement, or null for other statements and for
+   * ones assigning a name the driver controls, which are left for the engine to reject.
+   */
+  static Map<String, String> parseSet(String statement) {
+    String sql = statement.strip();
+    if (!SET.matcher(sql).matches()) {
+      return null;
+    }
+    Map<String, String> settings = new LinkedHashMap<>();
+    int i = 3;
+    while (i < sql.length()) {
+      int equals = sql.indexOf('=', i);
+      if (equals < 0) {
+        return null;
+      }
+      String name = sql.substring(i, equals).trim();
+      if (!isSettingName(name)) {
+        return null;
+      }
+      int end = equals + 1;
+      boolean quoted = false;
+      while (end < sql.length() && (quoted || sql.charAt(end) != ',')) {
+        char c = sql.charAt(end);
+        if (c == '\\' && quoted) {
+          end++;
+        } else if (c == '\'') {
+          quoted = !quoted;
+        }
+        end++;
+      }
+      settings.put(name, unquote(sql.substring(equals + 1, Math.min(end, sql.length())).trim()));
+      i = end + 1;
+    }
+    return settings.isEmpty() ? null : settings;
+  }
+
+  private static String unquote(String value) {
+    if (value.length() < 2 || value.charAt(0) != '\'' || value.charAt(value.length() - 1) != '\'') {
+      return value;
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = 1; i < value.length() - 1; i++) {
+      char c = value.charAt(i);
+      if ((c == '\\' || c == '\'') && i + 1 < value.length() - 1) {
+        c = value.charAt(++i);
+      }
+      text.append(c);
+    }
+    return text.toString();
+  }
+
+  /** Merges {@code overrides} over {@code base} into the name=value pairs passed to the native call. */
+  static String[] toArguments(Map<String, String> base, Map<String, String> overrides) {
+    Map<String, String> merged = new LinkedHashMap<>(base);
+    merged.putAll(overrides);
+    String[] arguments = new String[merged.size()];
+    int n = 0;
+    for (Map.Entry<String, String> setting : merged.entrySet()) {
+      arguments[n++] = setting.getKey() + "=" + setting.getValue();
+    }
+    return arguments;
+  }
+}
@@ -0,0 +1,33 @@
+package org.chdb.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Template for the mappers built by {@link RecordMappers}, defined once per (schema, target class) pair as a
+ * hidden class whose class data is the {@code (ResultSet) -> Object} mapping handle.
+ */
+final class GeneratedRecordMapper implements RowMapper<Object> {
+  private static final MethodHandle MAP;
+
+  static {
+    try {
+      MAP = MethodHandles.classData(MethodHandles.lookup(), "_", MethodHandle.class);
+    } catch (IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @Override
+  public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+    try {
+      return (Object) MAP.invokeExact(rs);
+    } catch (SQLException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new SQLException(t);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package org.chdb.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+
+/**
+ * Template for the decoders built by {@link RowDecoders}. It is never loaded under its own name: its bytes are
+ * defined once per schema as a hidden class whose class data is that schema's column decoder chain. Because the
+ * chain sits in a static final field, the JIT treats it as a constant and inlines every column's decode into
+ * {@link #decodeRow}.
+ */
+final class GeneratedRowDecoder implements RowDecoder {
+  private static final MethodHandle DECODE;
+
+  static {
+    try {
+      DECODE = MethodHandles.classData(MethodHandles.lookup(), "_", MethodHandle.class);
+    } catch (IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @Override
+  public void decodeRow(ByteBuffer buf, int[] bounds, int fields, Object[] values, boolean[][] nulls,
+                        StringDictionary[] dictionaries, int row) {
+    try {
+      DECODE.invokeExact(buf, bounds, fields, values, nulls, dictionaries, row);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+}
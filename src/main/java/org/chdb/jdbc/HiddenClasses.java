@@ -0,0 +1,50 @@
+package org.chdb.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines per-use copies of template classes in this package as hidden classes carrying a class data object. The
+ * templates read their class data into a static final field, which the JIT constant-folds.
+ */
+final class HiddenClasses {
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final Map<String, Optional<byte[]>> TEMPLATES = new ConcurrentHashMap<>();
+
+  private HiddenClasses() {
+  }
+
+  /**
+   * Defines a hidden copy of {@code template} with {@code classData} and returns a new instance of it, or null
+   * if the template's class file is unavailable or cannot be defined.
+   */
+  static <T> T instantiate(Class<T> type, String template, Object classData) {
+    byte[] bytes = TEMPLATES.computeIfAbsent(template, HiddenClasses::read).orElse(null);
+    if (bytes == null) {
+      return null;
+    }
+    try {
+      MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(bytes, classData, true);
+      return type.cast(hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke());
+    } catch (Throwable e) {
+      LOG.log(Level.FINE, "Could not define a hidden copy of " + template, e);
+      return null;
+    }
+  }
+
+  private static Optional<byte[]> read(String template) {
+    try (InputStream in = HiddenClasses.class.getResourceAsStream(template + ".class")) {
+      return Optional.ofNullable(in == null ? null : in.readAllBytes());
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package org.chdb.jdbc;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A SELECT whose trailing ORDER BY lists plain columns in one direction, rewritten into successive
+ * keyset-bounded pages. The ORDER BY columns must identify a row uniquely, otherwise rows sharing the key of a
+ * page's last row are skipped; paging is therefore only used when the connection enables
+ * {@code chdb.keysetPaging}.
+ */
+final class KeysetQuery {
+  static final String ENABLED = "chdb.keysetPaging";
+
+  private static final String IDENT = "(?:[A-Za-z_][A-Za-z0-9_]*|`[^`]+`)";
+  private static final String KEY = IDENT + "(?:\\s+(?:ASC|DESC))?";
+  private static final Pattern ORDERED = Pattern.compile(
+      "^\\s*((?:SELECT|WITH)\\b.*\\S)\\s+ORDER\\s+BY\\s+(" + KEY + "(?:\\s*,\\s*" + KEY + ")*)\\s*;?\\s*$",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  private static final Pattern DIRECTION = Pattern.compile("^(.+?)(?:\\s+(ASC|DESC))?$",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private final String base;
+  private final String[] keys;
+  private final boolean descending;
+
+  private KeysetQuery(String base, String[] keys, boolean descending) {
+    this.base = base;
+    this.keys = keys;
+    this.descending = descending;
+  }
+
+  /**
+   * Returns the keyset form of {@code sql}, or null if it does not end in a column-only ORDER BY or mixes
+   * directions, which a single tuple comparison cannot bound.
+   */
+  static KeysetQuery parse(String sql) {
+    Matcher m = ORDERED.matcher(sql);
+    if (!m.matches()) {
+      return null;
+    }
+    String[] items = m.group(2).split("\\s*,\\s*");
+    String[] keys = new String[items.length];
+    boolean descending = false;
+    for (int i = 0; i < items.length; i++) {
+      Matcher key = DIRECTION.matcher(items[i].trim());
+      key.matches();
+      boolean desc = "DESC".equalsIgnoreCase(key.group(2));
+      if (i > 0 && desc != descending) {
+        return null;
+      }
+      keys[i] = key.group(1);
+      descending = desc;
+    }
+    return new KeysetQuery(m.group(1), keys, descending);
+  }
+
+  String[] getKeys() {
+    return keys;
+  }
+
+  /** SQL for the page following the row whose key columns hold {@code after}, or the first page if null. */
+  String pageSql(String[] after, int limit) {
+    StringBuilder sql = new StringBuilder("SELECT * FROM (").append(base).append(')');
+    if (after != null) {
+      sql.append(" WHERE ").append(tuple(keys)).append(descending ? " < " : " > ").append(tuple(after));
+    }
+    return orderBy(sql).append(" LIMIT ").append(limit).toString();
+  }
+
+  /** SQL for the page {@code offset} rows into the order, for when the last row read has a NULL key. */
+  String offsetPageSql(long offset, int limit) {
+    StringBuilder sql = new StringBuilder("SELECT * FROM (").append(base).append(')');
+    return orderBy(sql).append(" LIMIT ").append(limit).append(" OFFSET ").append(offset).toString();
+  }
+
+  private StringBuilder orderBy(StringBuilder sql) {
+    sql.append(" ORDER BY ");
+    for (int i = 0; i < keys.length; i++) {
+      sql.append(i == 0 ? "" : ", ").append(keys[i]).append(descending ? " DESC" : " ASC");
+    }
+    return sql;
+  }
+
+  private static String tuple(String[] items) {
+    return items.length == 1 ? items[0] : "(" + String.join(", ", items) + ")";
+  }
+
+  /** Renders a decoded cell of the given ClickHouse type as a SQL literal. */
+  static String literal(String value, String type) {
+    if (value == null) {
+      return "NULL";
+    }
+    String base = type == null ? "" : unwrap(unwrap(type, "LowCardinality("), "Nullable(");
+    if (base.startsWith("Int") || base.startsWith("UInt") || base.startsWith("Float")
+        || base.startsWith("Decimal")) {
+      return value;
+    }
+    return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+  }
+
+  private static String unwrap(String type, String wrapper) {
+    return type.startsWith(wrapper) && type.endsWith(")")
+        ? type.substring(wrapper.length(), type.length() - 1) : type;
+  }
+
+  /** Bounds a SELECT to {@code maxRows} rows; other statements are returned unchanged. */
+  static String limit(String sql, int maxRows) {
+    if (maxRows <= 0 || !sql.stripLeading().regionMatches(true, 0, "SELECT", 0, 6)
+        && !sql.stripLeading().regionMatches(true, 0, "WITH", 0, 4)) {
+      return sql;
+    }
+    String body = sql.strip();
+    if (body.endsWith(";")) {
+      body = body.substring(0, body.length() - 1);
+    }
+    return "SELECT * FROM (" + body + ") LIMIT " + maxRows;
+  }
+}
@@ -2,22 +2,49 @@ package org.chdb.jdbc;
 
 import java.nio.ByteBuffer;
 
-public class LocalResultV2 {
+public class LocalResultV2 implements AutoCloseable {
   private ByteBuffer buf;
   private long rowsRead;
   private long bytesRead;
   private double elapsed;
   private String errorMessage;
+  private long nativeHandle;
+  private Runnable release;
+  private MemoryAccount.Allocation allocation;
+  private LocalResultV2 parent;
+  private volatile boolean closed;
 
   public LocalResultV2() {
   }
 
   public LocalResultV2(ByteBuffer buf, long rowsRead, long bytesRead, double elapsed, String errorMessage) {
+    this(buf, rowsRead, bytesRead, elapsed, errorMessage, 0L);
+  }
+
+  // Called from JNI: buf is a direct view of the native result identified by nativeHandle.
+  public LocalResultV2(ByteBuffer buf, long rowsRead, long bytesRead, double elapsed, String errorMessage,
+                       long nativeHandle) {
     this.buf = buf;
     this.rowsRead = rowsRead;
     this.bytesRead = bytesRead;
     this.elapsed = elapsed;
     this.errorMessage = errorMessage;
+    this.nativeHandle = nativeHandle;
+  }
+
+  // A result held outside the engine, such as a mapped result file of a worker process; release frees it.
+  static LocalResultV2 external(ByteBuffer buf, long rowsRead, long bytesRead, double elapsed, Runnable release) {
+    LocalResultV2 result = new LocalResultV2(buf, rowsRead, bytesRead, elapsed, null, 0L);
+    result.release = release;
+    return result;
+  }
+
+  // Bytes [start, end) of parent, such as the output of one statement of a script. The part owns no memory and
+  // counts as closed once parent is.
+  static LocalResultV2 part(LocalResultV2 parent, int start, int end) {
+    LocalResultV2 result = new LocalResultV2(parent.getBuf().slice(start, end - start), 0, 0, 0, null, 0L);
+    result.parent = parent;
+    return result;
   }
 
   public ByteBuffer getBuf() {
@@ -39,4 +66,38 @@ public class LocalResultV2 {
   public String getErrorMessage() {
     return errorMessage;
   }
+
+  // Read on every cell access of the result sets over this result, so it takes no lock.
+  public boolean isClosed() {
+    return closed || buf == null || parent != null && parent.isClosed();
+  }
+
+  // Charges the memory of this result to account; it is then freed through the account.
+  synchronized void track(MemoryAccount account) {
+    Runnable free = release();
+    if (free != null && allocation == null) {
+      allocation = account.track(this, free, buf.capacity());
+    }
+  }
+
+  // Must not capture this, as it also runs when the result is collected without being closed.
+  private Runnable release() {
+    long handle = nativeHandle;
+    return release != null ? release : handle != 0L ? () -> ChdbJniUtil.freeResult(handle) : null;
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    Runnable free = release();
+    nativeHandle = 0L;
+    release = null;
+    buf = null;
+    if (allocation != null) {
+      allocation.close();
+      allocation = null;
+    } else if (free != null) {
+      free.run();
+    }
+  }
 }
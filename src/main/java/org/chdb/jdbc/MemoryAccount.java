@@ -0,0 +1,249 @@
+package org.chdb.jdbc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Cleaner;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Accounts for the native memory of open results, for one connection and, through its parent, for the whole
+ * driver. A budget holds back new queries while the open results exceed it, either blocking them until results
+ * are closed or rejecting them. Results that are garbage collected without being closed are freed and logged as
+ * leaks, with the stack that opened them for one result in every {@code chdb.leak.sampleInterval}.
+ */
+final class MemoryAccount implements ChdbMemoryMXBean {
+  static final String BUDGET = "chdb.memory.budget";
+  static final String POLICY = "chdb.memory.policy";
+
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final Cleaner CLEANER = Cleaner.create();
+  private static final int SAMPLE_INTERVAL = Integer.getInteger("chdb.leak.sampleInterval", 64);
+  private static final AtomicLong ALLOCATIONS = new AtomicLong();
+  private static final AtomicInteger CONNECTIONS = new AtomicInteger();
+
+  static final MemoryAccount GLOBAL = new MemoryAccount(null, "The driver", "org.chdb.jdbc:type=Memory",
+      Long.getLong(BUDGET, 0), System.getProperty(POLICY, "block"));
+
+  private final MemoryAccount parent;
+  private final String owner;
+  private final ObjectName objectName;
+  private long budget;
+  private boolean reject;
+  private long liveBytes;
+  private long peakBytes;
+  private int liveResults;
+  private long totalResults;
+  private long blockedQueries;
+  private long rejectedQueries;
+  private long leakedResults;
+
+  private MemoryAccount(MemoryAccount parent, String owner, String objectName, long budget, String policy) {
+    this.parent = parent;
+    this.owner = owner;
+    this.budget = budget;
+    setPolicy(policy);
+    ObjectName name = null;
+    try {
+      name = new ObjectName(objectName);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    } catch (JMException e) {
+      LOG.log(Level.FINE, "Could not register " + objectName, e);
+    }
+    this.objectName = name;
+  }
+
+  /** An account for a new connection, with the budget and policy from its properties. */
+  static MemoryAccount forConnection(Properties info) throws SQLException {
+    long budget = ConnectionProperties.getLong(info, BUDGET, 0);
+    String policy = ConnectionProperties.getChoice(info, POLICY, "block", "block", "reject");
+    int id = CONNECTIONS.incrementAndGet();
+    return new MemoryAccount(GLOBAL, "Connection " + id, "org.chdb.jdbc:type=Memory,connection=" + id, budget,
+        policy);
+  }
+
+  /** Unregisters the MBean of a closed connection; its results stay accounted for until they are closed. */
+  void close() {
+    if (objectName != null && parent != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        LOG.log(Level.FINE, "Could not unregister " + objectName, e);
+      }
+    }
+  }
+
+  /**
+   * Admits a new query under the budgets of this account and its parent, waiting at most {@code waitMillis}
+   * (0 for no limit) under the block policy.
+   */
+  void reserve(long waitMillis) throws SQLException {
+    long deadline = waitMillis > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis) : 0;
+    if (parent != null) {
+      parent.admit(deadline);
+    }
+    admit(deadline);
+  }
+
+  private synchronized void admit(long deadline) throws SQLException {
+    if (budget <= 0 || liveBytes < budget) {
+      return;
+    }
+    if (reject) {
+      rejectedQueries++;
+      throw new SQLException(owner + " holds " + liveBytes + " bytes of open results, over its budget of " + budget);
+    }
+    blockedQueries++;
+    try {
+      while (budget > 0 && liveBytes >= budget) {
+        if (deadline == 0) {
+          wait();
+          continue;
+        }
+        long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (left <= 0) {
+          throw new SQLTimeoutException("Timed out waiting for open results to drop below the budget of " + budget
+              + " bytes");
+        }
+        wait(left);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for open results to be closed", e);
+    }
+  }
+
+  /** Charges {@code result} to this account until it is closed or reclaimed as a leak; {@code free} frees it. */
+  Allocation track(LocalResultV2 result, Runnable free, long bytes) {
+    boolean sampled = SAMPLE_INTERVAL > 0 && ALLOCATIONS.getAndIncrement() % SAMPLE_INTERVAL == 0;
+    Allocation allocation = new Allocation(this, free, bytes, sampled ? new Throwable("Result opened here") : null);
+    charge(bytes);
+    allocation.cleanable = CLEANER.register(result, allocation);
+    return allocation;
+  }
+
+  private void charge(long bytes) {
+    synchronized (this) {
+      liveBytes += bytes;
+      peakBytes = Math.max(peakBytes, liveBytes);
+      liveResults++;
+      totalResults++;
+    }
+    if (parent != null) {
+      parent.charge(bytes);
+    }
+  }
+
+  private void release(long bytes, boolean leaked) {
+    synchronized (this) {
+      liveBytes -= bytes;
+      liveResults--;
+      if (leaked) {
+        leakedResults++;
+      }
+      notifyAll();
+    }
+    if (parent != null) {
+      parent.release(bytes, leaked);
+    }
+  }
+
+  @Override
+  public synchronized long getLiveBytes() {
+    return liveBytes;
+  }
+
+  @Override
+  public synchronized long getPeakBytes() {
+    return peakBytes;
+  }
+
+  @Override
+  public synchronized int getLiveResults() {
+    return liveResults;
+  }
+
+  @Override
+  public synchronized long getTotalResults() {
+    return totalResults;
+  }
+
+  @Override
+  public synchronized long getBudget() {
+    return budget;
+  }
+
+  @Override
+  public synchronized void setBudget(long budget) {
+    this.budget = Math.max(budget, 0);
+    notifyAll();
+  }
+
+  @Override
+  public synchronized String getPolicy() {
+    return reject ? "reject" : "block";
+  }
+
+  @Override
+  public synchronized void setPolicy(String policy) {
+    if (!policy.equalsIgnoreCase("block") && !policy.equalsIgnoreCase("reject")) {
+      throw new IllegalArgumentException("Memory policy must be block or reject: " + policy);
+    }
+    reject = policy.equalsIgnoreCase("reject");
+    notifyAll();
+  }
+
+  @Override
+  public synchronized long getBlockedQueries() {
+    return blockedQueries;
+  }
+
+  @Override
+  public synchronized long getRejectedQueries() {
+    return rejectedQueries;
+  }
+
+  @Override
+  public synchronized long getLeakedResults() {
+    return leakedResults;
+  }
+
+  /** A result charged to an account; frees it when closed or, as a leak, when the result is collected. */
+  static final class Allocation implements Runnable {
+    private final MemoryAccount account;
+    private final Runnable free;
+    private final long bytes;
+    private final Throwable opened;
+    private Cleaner.Cleanable cleanable;
+    private volatile boolean closed;
+
+    private Allocation(MemoryAccount account, Runnable free, long bytes, Throwable opened) {
+      this.account = account;
+      this.free = free;
+      this.bytes = bytes;
+      this.opened = opened;
+    }
+
+    void close() {
+      closed = true;
+      cleanable.clean();
+    }
+
+    @Override
+    public void run() {
+      if (!closed) {
+        LOG.log(Level.WARNING, "A result of " + bytes + " bytes was not closed" + (opened == null
+            ? "; set chdb.leak.sampleInterval=1 to log where every result is opened" : ""), opened);
+      }
+      free.run();
+      account.release(bytes, !closed);
+    }
+  }
+}
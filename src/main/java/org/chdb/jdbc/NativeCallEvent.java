@@ -0,0 +1,55 @@
+package org.chdb.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** One call into the engine through JNI, with the statistics the engine reports for it. */
+@Name("org.chdb.NativeCall")
+@Label("Native Call")
+@Category({"chDB", "JDBC"})
+@StackTrace(false)
+final class NativeCallEvent extends Event {
+  @Label("SQL Fingerprint")
+  String fingerprint;
+
+  @Label("Format")
+  String format;
+
+  @Label("Rows Read")
+  long rowsRead;
+
+  @Label("Bytes Read")
+  @DataAmount
+  long bytesRead;
+
+  @Label("Engine Elapsed")
+  @Description("Time the engine reports for the query")
+  @Timespan
+  long engineElapsed;
+
+  @Label("Result Size")
+  @DataAmount
+  long bufferSize;
+
+  @Label("Error")
+  String error;
+
+  // Fills in the statistics of result, which may be null if the call failed.
+  void set(String sql, String format, LocalResultV2 result) {
+    this.fingerprint = QueryExecutionEvent.fingerprint(sql);
+    this.format = format;
+    if (result != null) {
+      rowsRead = result.getRowsRead();
+      bytesRead = result.getBytesRead();
+      engineElapsed = (long) (result.getElapsed() * 1e9);
+      bufferSize = result.getBuf() == null ? 0 : result.getBuf().capacity();
+      error = result.getErrorMessage();
+    }
+  }
+}
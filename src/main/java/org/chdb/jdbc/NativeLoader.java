@@ -0,0 +1,218 @@
+package org.chdb.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.jar.JarEntry;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Loads libchdb and libchdbjni. The jar bundles them per platform under {@code org/chdb/jdbc/native/<platform>};
+ * they are extracted once into a cache directory named after their content, so later JVMs on the same machine
+ * load the copies already there. Without bundled libraries for the platform, the libraries are looked up on
+ * {@code java.library.path}, and {@code chdb.native.path} points at a directory holding both instead.
+ */
+final class NativeLoader {
+  static final String[] LIBRARIES = {"libchdb.so", "libchdbjni.so"};
+
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final String RESOURCE_ROOT = "/org/chdb/jdbc/native/";
+  // Written last into a verified copy, so a directory without it is partial or damaged.
+  private static final String MARKER = ".verified";
+  private static boolean loaded;
+
+  private NativeLoader() {
+  }
+
+  static synchronized void load() {
+    if (loaded) {
+      return;
+    }
+    String path = System.getProperty("chdb.native.path");
+    String platform = platform();
+    if (path != null) {
+      loadFrom(Paths.get(path));
+    } else if (platform != null && resource(platform, LIBRARIES[0]) != null) {
+      loadFrom(extract(platform));
+    } else {
+      System.loadLibrary("chdbjni");
+    }
+    loaded = true;
+  }
+
+  // libchdb goes first, so the dynamic linker finds it already loaded when resolving libchdbjni.
+  private static void loadFrom(Path directory) {
+    for (String library : LIBRARIES) {
+      System.load(directory.resolve(library).toAbsolutePath().toString());
+    }
+  }
+
+  private static URL resource(String platform, String library) {
+    return NativeLoader.class.getResource(RESOURCE_ROOT + platform + "/" + library);
+  }
+
+  static String platform() {
+    String os = System.getProperty("os.name").toLowerCase(Locale.ROOT);
+    String arch = System.getProperty("os.arch").toLowerCase(Locale.ROOT);
+    if (!os.startsWith("linux")) {
+      return null;
+    }
+    if (arch.equals("amd64") || arch.equals("x86_64")) {
+      return "linux-x86_64";
+    }
+    if (arch.equals("aarch64") || arch.equals("arm64")) {
+      return "linux-aarch64";
+    }
+    return null;
+  }
+
+  /** Returns the cache directory holding the libraries of {@code platform}, extracting them if needed. */
+  static Path extract(String platform) {
+    try {
+      Path cache = cacheRoot();
+      Path directory = cache.resolve(platform + "-" + contentHash(platform));
+      if (isComplete(directory, platform)) {
+        return directory;
+      }
+      if (Files.isDirectory(directory)) {
+        // An unverified or damaged copy; libraries another JVM has loaded from it stay mapped after removal.
+        LOG.warning("Replacing unverified native libraries in " + directory);
+        delete(directory);
+      }
+      Files.createDirectories(cache);
+      // Extract next to the target and move it into place, so concurrent JVMs never load a partial copy.
+      Path staging = Files.createTempDirectory(cache, platform + "-");
+      for (String library : LIBRARIES) {
+        try (InputStream in = resource(platform, library).openStream()) {
+          Files.copy(in, staging.resolve(library));
+        }
+      }
+      if (!isIntact(staging, platform)) {
+        delete(staging);
+        throw new IOException("Extracted native libraries do not match their CRC-32");
+      }
+      Files.createFile(staging.resolve(MARKER));
+      try {
+        Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info("Extracted native libraries to " + directory);
+      } catch (IOException e) {
+        // Another JVM may have moved its copy into place first.
+        delete(staging);
+        if (!isComplete(directory, platform)) {
+          throw e;
+        }
+      }
+      return directory;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not extract the native libraries of " + platform, e);
+    }
+  }
+
+  private static Path cacheRoot() {
+    String configured = System.getProperty("chdb.native.cache");
+    if (configured != null) {
+      return Paths.get(configured);
+    }
+    String xdg = System.getenv("XDG_CACHE_HOME");
+    Path base = xdg != null ? Paths.get(xdg) : Paths.get(System.getProperty("user.home"), ".cache");
+    return base.resolve("chdb-java");
+  }
+
+  // A copy was verified once, when extracted; later starts only check its marker and sizes, without reading it.
+  private static boolean isComplete(Path directory, String platform) throws IOException {
+    if (!Files.isRegularFile(directory.resolve(MARKER))) {
+      return false;
+    }
+    for (String library : LIBRARIES) {
+      Path file = directory.resolve(library);
+      if (!Files.isRegularFile(file)
+          || Files.size(file) != resource(platform, library).openConnection().getContentLengthLong()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // Compares the CRC-32 of every extracted file with that of the bundled library.
+  private static boolean isIntact(Path directory, String platform) throws IOException {
+    for (String library : LIBRARIES) {
+      try (InputStream in = Files.newInputStream(directory.resolve(library))) {
+        if (crc(in) != crc(resource(platform, library).openConnection())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  // The jar records the CRC-32 of each entry; other resources are read to compute it.
+  private static long crc(URLConnection resource) throws IOException {
+    if (resource instanceof JarURLConnection) {
+      long crc = ((JarURLConnection) resource).getJarEntry().getCrc();
+      if (crc != -1) {
+        return crc;
+      }
+    }
+    try (InputStream in = resource.getInputStream()) {
+      return crc(in);
+    }
+  }
+
+  private static long crc(InputStream in) throws IOException {
+    CRC32 crc = new CRC32();
+    byte[] chunk = new byte[1 << 16];
+    for (int n = in.read(chunk); n >= 0; n = in.read(chunk)) {
+      crc.update(chunk, 0, n);
+    }
+    return crc.getValue();
+  }
+
+  private static void delete(Path directory) throws IOException {
+    Files.deleteIfExists(directory.resolve(MARKER));
+    for (String library : LIBRARIES) {
+      Files.deleteIfExists(directory.resolve(library));
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * A hash of the bundled libraries. Inside a jar it is taken from the CRC and size that the jar records for
+   * each entry, so the libraries are not read on every start; otherwise from their bytes.
+   */
+  static String contentHash(String platform) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    for (String library : LIBRARIES) {
+      URLConnection connection = resource(platform, library).openConnection();
+      if (connection instanceof JarURLConnection) {
+        JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+        digest.update((library + ":" + entry.getCrc() + ":" + entry.getSize()).getBytes(StandardCharsets.UTF_8));
+      } else {
+        try (InputStream in = connection.getInputStream()) {
+          byte[] chunk = new byte[1 << 16];
+          for (int n = in.read(chunk); n >= 0; n = in.read(chunk)) {
+            digest.update(chunk, 0, n);
+          }
+        }
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest(), 0, 8);
+  }
+}
@@ -0,0 +1,311 @@
+package org.chdb.jdbc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Parser for the text form of Array, Map and Tuple cells, such as {@code [1,2]}, {@code {'k':1}} and
+ * {@code (1,'x')}. Values are read from the cell's bytes in the result buffer: a value is split into the bounds
+ * of its top-level elements, and each element is decoded only when it is read. Element types come from the
+ * column type when the result has a typed header, and are inferred from the text otherwise.
+ */
+final class NestedValues {
+  private static final int[] EMPTY = new int[0];
+
+  private NestedValues() {
+  }
+
+  /**
+   * Returns the bounds of the top-level elements of the bracketed value {@code [start, end)} as start and end
+   * pairs, skipping over quoted strings and nested brackets.
+   */
+  static int[] split(ByteBuffer buf, int start, int end) {
+    int from = start + 1;
+    int to = end - 1;
+    if (from >= to) {
+      return EMPTY;
+    }
+    int[] bounds = new int[16];
+    int count = 0;
+    int depth = 0;
+    int elementStart = from;
+    for (int i = from; i <= to; i++) {
+      byte b = i < to ? buf.get(i) : (byte) ',';
+      if (b == '\'') {
+        i = stringEnd(buf, i, to);
+      } else if (b == '[' || b == '(' || b == '{') {
+        depth++;
+      } else if (b == ']' || b == ')' || b == '}') {
+        depth--;
+      } else if (b == ',' && depth == 0) {
+        if (count + 2 > bounds.length) {
+          bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[count++] = elementStart;
+        bounds[count++] = i;
+        elementStart = i + 1;
+      }
+    }
+    return count == bounds.length ? bounds : Arrays.copyOf(bounds, count);
+  }
+
+  // Returns the offset of the quote closing the string that opens at start.
+  private static int stringEnd(ByteBuffer buf, int start, int limit) {
+    for (int i = start + 1; i < limit; i++) {
+      byte b = buf.get(i);
+      if (b == '\\') {
+        i++;
+      } else if (b == '\'') {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  /** Returns the offset of the top-level {@code :} separating the key and value of a map entry. */
+  static int keySeparator(ByteBuffer buf, int start, int end) {
+    int depth = 0;
+    for (int i = start; i < end; i++) {
+      byte b = buf.get(i);
+      if (b == '\'') {
+        i = stringEnd(buf, i, end);
+      } else if (b == '[' || b == '(' || b == '{') {
+        depth++;
+      } else if (b == ']' || b == ')' || b == '}') {
+        depth--;
+      } else if (b == ':' && depth == 0) {
+        return i;
+      }
+    }
+    return end;
+  }
+
+  /** Strips the Nullable and LowCardinality wrappers of a type. */
+  static String unwrap(String type) {
+    while (type != null && (type.startsWith("Nullable(") || type.startsWith("LowCardinality("))) {
+      type = type.substring(type.indexOf('(') + 1, type.length() - 1);
+    }
+    return type;
+  }
+
+  /** Returns the top-level arguments of a parameterized type, dropping the names of named tuple elements. */
+  static String[] typeArguments(String type) {
+    int open = type == null ? -1 : type.indexOf('(');
+    if (open < 0 || !type.endsWith(")")) {
+      return new String[0];
+    }
+    List<String> arguments = new ArrayList<>();
+    int depth = 0;
+    int argumentStart = open + 1;
+    for (int i = open + 1; i < type.length(); i++) {
+      char c = type.charAt(i);
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && depth > 0) {
+        depth--;
+      } else if ((c == ',' && depth == 0) || i == type.length() - 1) {
+        String argument = type.substring(argumentStart, i).trim();
+        int space = argument.indexOf(' ');
+        int paren = argument.indexOf('(');
+        if (space > 0 && (paren < 0 || space < paren)) {
+          argument = argument.substring(space + 1).trim();
+        }
+        arguments.add(argument);
+        argumentStart = i + 1;
+      }
+    }
+    return arguments.toArray(new String[0]);
+  }
+
+  static boolean isInteger(String type) {
+    return type != null && (type.startsWith("Int") || type.startsWith("UInt"));
+  }
+
+  // Integer types whose every value fits a signed long; UInt64 and the 128 and 256-bit types do not.
+  static boolean fitsLong(String type) {
+    return type != null && type.matches("Int(8|16|32|64)|UInt(8|16|32)");
+  }
+
+  static boolean isFloat(String type) {
+    return type != null && type.startsWith("Float");
+  }
+
+  static boolean isNull(ByteBuffer buf, int start, int end) {
+    return end - start == 4 && buf.get(start) == 'N' && buf.get(start + 1) == 'U' && buf.get(start + 2) == 'L'
+        && buf.get(start + 3) == 'L';
+  }
+
+  /** Decodes one element as a value of {@code type}, or of the type its text suggests when {@code type} is null. */
+  static Object decode(LocalResultV2 owner, ByteBuffer buf, int start, int end, String type) {
+    while (start < end && buf.get(start) == ' ') {
+      start++;
+    }
+    if (start >= end || isNull(buf, start, end)) {
+      return null;
+    }
+    String base = unwrap(type);
+    byte first = buf.get(start);
+    if (first == '[' && (base == null || base.startsWith("Array("))) {
+      return new ChdbArray(owner, buf, start, end, base == null ? null : typeArguments(base)[0]);
+    }
+    if (first == '{' && (base == null || base.startsWith("Map("))) {
+      return map(owner, buf, start, end, base);
+    }
+    if (first == '(' && (base == null || base.startsWith("Tuple("))) {
+      return new ChdbStruct(owner, buf, start, end, base);
+    }
+    if (first == '\'') {
+      return string(buf, start, end);
+    }
+    String text = new String(bytes(buf, start, end), StandardCharsets.ISO_8859_1);
+    if (base == null) {
+      return inferNumber(text);
+    }
+    if (isInteger(base)) {
+      return fitsLong(base) ? (Object) Long.parseLong(text) : new BigInteger(text);
+    }
+    if (isFloat(base)) {
+      return CsvScanner.parseDouble(text);
+    }
+    if (base.startsWith("Decimal")) {
+      return new BigDecimal(text);
+    }
+    if (base.equals("Bool")) {
+      return text.equals("true");
+    }
+    return text;
+  }
+
+  private static Object inferNumber(String text) {
+    if (text.equals("true") || text.equals("false")) {
+      return text.equals("true");
+    }
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException e) {
+      try {
+        return CsvScanner.parseDouble(text);
+      } catch (NumberFormatException notNumeric) {
+        return text;
+      }
+    }
+  }
+
+  // Unquotes a single-quoted string, resolving backslash escapes and the doubled quotes of the CSV cell.
+  private static String string(ByteBuffer buf, int start, int end) {
+    int last = end - 1;
+    while (last > start && buf.get(last) != '\'') {
+      last--;
+    }
+    byte[] bytes = new byte[Math.max(last - start - 1, 0)];
+    int n = 0;
+    for (int i = start + 1; i < last; i++) {
+      byte b = buf.get(i);
+      if (b == '\\' && i + 1 < last) {
+        b = buf.get(++i);
+        switch (b) {
+          case 'n': b = '\n'; break;
+          case 't': b = '\t'; break;
+          case 'r': b = '\r'; break;
+          case '0': b = 0; break;
+          default: break;
+        }
+      } else if (b == '"' && i + 1 < last && buf.get(i + 1) == '"') {
+        i++;
+      }
+      bytes[n++] = b;
+    }
+    return new String(bytes, 0, n, StandardCharsets.UTF_8);
+  }
+
+  private static byte[] bytes(ByteBuffer buf, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    buf.get(start, bytes);
+    return bytes;
+  }
+
+  static void checkOpen(LocalResultV2 owner) throws SQLException {
+    if (owner != null && owner.isClosed()) {
+      throw new SQLException("The result set holding this value is closed");
+    }
+  }
+
+  /** A view of the Map cell {@code [start, end)}. */
+  static Map<Object, Object> map(LocalResultV2 owner, ByteBuffer buf, int start, int end, String type) {
+    String[] arguments = typeArguments(unwrap(type));
+    return new MapView(owner, buf, start, end, arguments.length == 2 ? arguments[0] : null,
+        arguments.length == 2 ? arguments[1] : null);
+  }
+
+  /** A Map cell, decoding each key and value as it is iterated. */
+  static final class MapView extends AbstractMap<Object, Object> {
+    private final LocalResultV2 owner;
+    private final ByteBuffer buf;
+    private final int[] entries;
+    private final String keyType;
+    private final String valueType;
+
+    MapView(LocalResultV2 owner, ByteBuffer buf, int start, int end, String keyType, String valueType) {
+      this.owner = owner;
+      this.buf = buf;
+      this.entries = split(buf, start, end);
+      this.keyType = keyType;
+      this.valueType = valueType;
+    }
+
+    @Override
+    public int size() {
+      return entries.length / 2;
+    }
+
+    @Override
+    public Set<Entry<Object, Object>> entrySet() {
+      return new AbstractSet<>() {
+        @Override
+        public int size() {
+          return entries.length / 2;
+        }
+
+        @Override
+        public Iterator<Entry<Object, Object>> iterator() {
+          return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+              return next < entries.length;
+            }
+
+            @Override
+            public Entry<Object, Object> next() {
+              if (next >= entries.length) {
+                throw new NoSuchElementException();
+              }
+              if (owner != null && owner.isClosed()) {
+                throw new IllegalStateException("The result set holding this map is closed");
+              }
+              int start = entries[next];
+              int end = entries[next + 1];
+              next += 2;
+              int colon = keySeparator(buf, start, end);
+              return new SimpleImmutableEntry<>(decode(owner, buf, start, colon, keyType),
+                  decode(owner, buf, Math.min(colon + 1, end), end, valueType));
+            }
+          };
+        }
+      };
+    }
+  }
+}
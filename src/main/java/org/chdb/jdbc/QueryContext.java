@@ -0,0 +1,55 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.Properties;
+
+/**
+ * What the native calls of a connection go through: the memory account their results are charged to, the
+ * slow-query log, and the engine that runs them, either in this process or in a pool of worker processes.
+ */
+final class QueryContext {
+  /** Runs native calls; like {@link ChdbJniUtil#executeQuery}, an engine error comes back inside the result. */
+  interface Engine {
+    LocalResultV2 execute(String sql, String format, String[] settings) throws SQLException;
+  }
+
+  static final Engine IN_PROCESS = ChdbJniUtil::executeQuery;
+  static final QueryContext DEFAULT = new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED, IN_PROCESS);
+
+  private final MemoryAccount memory;
+  private final SlowQueryLog slowLog;
+  private final Engine engine;
+
+  QueryContext(MemoryAccount memory, SlowQueryLog slowLog, Engine engine) {
+    this.memory = memory;
+    this.slowLog = slowLog;
+    this.engine = engine;
+  }
+
+  static QueryContext forConnection(Properties info) throws SQLException {
+    WorkerPool workers = WorkerPool.forConnection(info);
+    Engine engine = workers != null ? workers : IN_PROCESS;
+    return new QueryContext(MemoryAccount.forConnection(info), SlowQueryLog.forConnection(info, engine), engine);
+  }
+
+  /** Returns true if native calls run in this process rather than in worker processes. */
+  boolean isInProcess() {
+    return engine == IN_PROCESS;
+  }
+
+  MemoryAccount memory() {
+    return memory;
+  }
+
+  SlowQueryLog slowLog() {
+    return slowLog;
+  }
+
+  LocalResultV2 execute(String sql, String format, String[] settings) throws SQLException {
+    return engine.execute(sql, format, settings);
+  }
+
+  void close() {
+    memory.close();
+  }
+}
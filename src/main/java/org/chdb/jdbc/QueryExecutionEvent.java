@@ -0,0 +1,85 @@
+package org.chdb.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A statement execution, from the call into the driver until its first result is ready. */
+@Name("org.chdb.QueryExecution")
+@Label("Query Execution")
+@Category({"chDB", "JDBC"})
+@StackTrace(false)
+final class QueryExecutionEvent extends Event {
+  private static final int MAX_FINGERPRINT = 2048;
+
+  @Label("SQL Fingerprint")
+  @Description("The statement with its literals replaced by ?")
+  String fingerprint;
+
+  @Label("Statements")
+  int statements;
+
+  @Label("Paged")
+  boolean paged;
+
+  @Label("Query Timeout")
+  @Description("Seconds, 0 for none")
+  int queryTimeout;
+
+  @Label("Succeeded")
+  boolean succeeded;
+
+  /** Returns {@code sql} with string and number literals replaced by {@code ?} and whitespace collapsed. */
+  static String fingerprint(String sql) {
+    StringBuilder text = new StringBuilder(Math.min(sql.length(), MAX_FINGERPRINT));
+    int i = 0;
+    int length = sql.length();
+    while (i < length && text.length() < MAX_FINGERPRINT) {
+      char c = sql.charAt(i);
+      if (c == '\'') {
+        i = stringEnd(sql, i + 1) + 1;
+        text.append('?');
+      } else if (Character.isDigit(c) && (text.length() == 0 || !Character.isJavaIdentifierPart(last(text)))) {
+        while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+          i++;
+        }
+        text.append('?');
+      } else if (Character.isWhitespace(c)) {
+        while (i < length && Character.isWhitespace(sql.charAt(i))) {
+          i++;
+        }
+        if (text.length() > 0 && i < length) {
+          text.append(' ');
+        }
+      } else {
+        text.append(c);
+        i++;
+      }
+    }
+    return text.toString();
+  }
+
+  // Returns the offset of the quote closing a string literal, skipping escaped and doubled quotes.
+  private static int stringEnd(String sql, int i) {
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\\') {
+        i += 2;
+      } else if (c == '\'' && i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+        i += 2;
+      } else if (c == '\'') {
+        return i;
+      } else {
+        i++;
+      }
+    }
+    return i;
+  }
+
+  private static char last(StringBuilder text) {
+    return text.charAt(text.length() - 1);
+  }
+}
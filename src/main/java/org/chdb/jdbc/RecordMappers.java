@@ -0,0 +1,193 @@
+package org.chdb.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InaccessibleObjectException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds row-to-object mappers once per (column names, target class) pair. Records are created through their
+ * canonical constructor, with each component read from the column of the same name, or by position when no
+ * name matches and the counts agree. Other classes need a no-argument constructor; columns are written through
+ * a matching {@code setXxx} method or non-final field. Column names match case-insensitively, and snake_case
+ * columns match camelCase members. At most {@value #MAX_SCHEMAS} schemas are cached per class; mappers for
+ * further schemas are compiled on every call.
+ */
+final class RecordMappers {
+  static final int MAX_SCHEMAS = 64;
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final ClassValue<Map<List<String>, RowMapper<Object>>> CACHE = new ClassValue<>() {
+    @Override
+    protected Map<List<String>, RowMapper<Object>> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private RecordMappers() {
+  }
+
+  static RowMapper<Object> forType(Class<?> type, String[] columns) throws SQLException {
+    Map<List<String>, RowMapper<Object>> mappers = CACHE.get(type);
+    List<String> schema = Arrays.asList(columns.clone());
+    RowMapper<Object> mapper = mappers.get(schema);
+    if (mapper == null) {
+      mapper = compile(type, columns);
+      if (mappers.size() < MAX_SCHEMAS) {
+        mappers.putIfAbsent(schema, mapper);
+      }
+    }
+    return mapper;
+  }
+
+  private static RowMapper<Object> compile(Class<?> type, String[] columns) throws SQLException {
+    MethodHandle map;
+    try {
+      map = type.isRecord() ? recordHandle(type, columns) : beanHandle(type, columns);
+    } catch (ReflectiveOperationException | InaccessibleObjectException e) {
+      throw new SQLException("Cannot map rows to " + type.getName(), e);
+    }
+    map = map.asType(MethodType.methodType(Object.class, ResultSet.class));
+    @SuppressWarnings("unchecked")
+    RowMapper<Object> generated = HiddenClasses.instantiate(RowMapper.class, "GeneratedRecordMapper", map);
+    if (generated != null) {
+      return generated;
+    }
+    MethodHandle handle = map;
+    return (rs, rowNum) -> {
+      try {
+        return (Object) handle.invokeExact(rs);
+      } catch (SQLException | RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new SQLException(t);
+      }
+    };
+  }
+
+  // (ChdbResultSet) -> type, calling the canonical constructor with every component read from its column.
+  private static MethodHandle recordHandle(Class<?> type, String[] columns)
+      throws ReflectiveOperationException, SQLException {
+    RecordComponent[] components = type.getRecordComponents();
+    Class<?>[] types = new Class<?>[components.length];
+    for (int i = 0; i < components.length; i++) {
+      types[i] = components[i].getType();
+    }
+    Constructor<?> constructor = type.getDeclaredConstructor(types);
+    constructor.setAccessible(true);
+    MethodHandle create = LOOKUP.unreflectConstructor(constructor);
+    boolean byPosition = components.length == columns.length;
+    for (RecordComponent component : components) {
+      byPosition &= columnOf(columns, component.getName()) < 0;
+    }
+    MethodHandle[] readers = new MethodHandle[components.length];
+    for (int i = 0; i < components.length; i++) {
+      int column = byPosition ? i + 1 : columnOf(columns, components[i].getName());
+      if (column < 0) {
+        throw new SQLException("No column for record component " + type.getSimpleName() + "."
+            + components[i].getName());
+      }
+      readers[i] = reader(types[i], column);
+    }
+    MethodHandle filled = MethodHandles.filterArguments(create, 0, readers);
+    return MethodHandles.permuteArguments(filled, MethodType.methodType(type, ChdbResultSet.class),
+        new int[components.length]);
+  }
+
+  // (ChdbResultSet) -> type, creating an instance and applying one setter or field write per mapped column.
+  private static MethodHandle beanHandle(Class<?> type, String[] columns)
+      throws ReflectiveOperationException, SQLException {
+    Constructor<?> constructor = type.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    MethodHandle create = MethodHandles.dropArguments(LOOKUP.unreflectConstructor(constructor), 0,
+        ChdbResultSet.class);
+    MethodHandle apply = MethodHandles.dropArguments(MethodHandles.identity(type), 1, ChdbResultSet.class);
+    List<MethodHandle> writes = new ArrayList<>();
+    for (int i = 0; i < columns.length; i++) {
+      MethodHandle write = writer(type, columns[i]);
+      if (write != null) {
+        Class<?> valueType = write.type().parameterType(1);
+        writes.add(MethodHandles.filterArguments(write, 1, reader(valueType, i + 1)));
+      }
+    }
+    if (writes.isEmpty()) {
+      throw new SQLException("No column of the result matches a property of " + type.getName());
+    }
+    for (int i = writes.size() - 1; i >= 0; i--) {
+      apply = MethodHandles.foldArguments(apply, writes.get(i).asType(
+          MethodType.methodType(void.class, type, ChdbResultSet.class)));
+    }
+    return MethodHandles.foldArguments(apply, create);
+  }
+
+  // (type, value) -> void for the setter or field matching column, or null if there is none.
+  private static MethodHandle writer(Class<?> type, String column) throws IllegalAccessException {
+    String property = camelCase(column);
+    String setter = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    for (Method method : type.getMethods()) {
+      if (method.getParameterCount() == 1 && method.getName().equalsIgnoreCase(setter)
+          && !Modifier.isStatic(method.getModifiers()) && CellReaders.handle(method.getParameterTypes()[0]) != null) {
+        return LOOKUP.unreflect(method).asType(MethodType.methodType(void.class, type,
+            method.getParameterTypes()[0]));
+      }
+    }
+    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (field.getName().equalsIgnoreCase(property) && !Modifier.isStatic(modifiers)
+            && !Modifier.isFinal(modifiers) && CellReaders.handle(field.getType()) != null) {
+          field.setAccessible(true);
+          return LOOKUP.unreflectSetter(field).asType(MethodType.methodType(void.class, type, field.getType()));
+        }
+      }
+    }
+    return null;
+  }
+
+  private static MethodHandle reader(Class<?> type, int column) throws SQLException {
+    MethodHandle reader = CellReaders.handle(type);
+    if (reader == null) {
+      throw new SQLException("Cannot read a column as " + type.getName());
+    }
+    return MethodHandles.insertArguments(reader, 1, column);
+  }
+
+  private static int columnOf(String[] columns, String member) {
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i].equalsIgnoreCase(member) || camelCase(columns[i]).equalsIgnoreCase(member)) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  private static String camelCase(String column) {
+    if (column.indexOf('_') < 0) {
+      return column;
+    }
+    StringBuilder name = new StringBuilder(column.length());
+    boolean upper = false;
+    for (int i = 0; i < column.length(); i++) {
+      char c = column.charAt(i);
+      if (c == '_') {
+        upper = name.length() > 0;
+      } else {
+        name.append(upper ? Character.toUpperCase(c) : c);
+        upper = false;
+      }
+    }
+    return name.length() == 0 ? column : name.toString();
+  }
+}
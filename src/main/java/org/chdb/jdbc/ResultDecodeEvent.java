@@ -0,0 +1,28 @@
+package org.chdb.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Indexing a result buffer, or decoding one chunk of a large result, before its rows are read. */
+@Name("org.chdb.ResultDecode")
+@Label("Result Decode")
+@Category({"chDB", "JDBC"})
+@StackTrace(false)
+final class ResultDecodeEvent extends Event {
+  @Label("Mode")
+  String mode;
+
+  @Label("Bytes")
+  @DataAmount
+  long bytes;
+
+  @Label("Rows")
+  long rows;
+
+  @Label("Columns")
+  int columns;
+}
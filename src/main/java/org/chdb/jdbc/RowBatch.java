@@ -0,0 +1,40 @@
+package org.chdb.jdbc;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A run of consecutive decoded rows emitted by {@link ChdbStatement#publish(String, int)}. Each row holds its
+ * cell values in column order; SQL NULL cells are {@code null}.
+ */
+public final class RowBatch implements Iterable<String[]> {
+  private final long firstRow;
+  private final List<String[]> rows;
+
+  RowBatch(long firstRow, List<String[]> rows) {
+    this.firstRow = firstRow;
+    this.rows = rows;
+  }
+
+  /** Zero-based position of the first row of this batch within the whole result. */
+  public long getFirstRow() {
+    return firstRow;
+  }
+
+  public int size() {
+    return rows.size();
+  }
+
+  public String[] getRow(int index) {
+    return rows.get(index);
+  }
+
+  public List<String[]> getRows() {
+    return rows;
+  }
+
+  @Override
+  public Iterator<String[]> iterator() {
+    return rows.iterator();
+  }
+}
@@ -0,0 +1,13 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes the split fields of one CSV record into typed column arrays. {@code bounds} holds start/end pairs of
+ * the record's fields as produced by {@link CsvScanner#splitFields}, of which {@code fields} are present. String
+ * columns decode through their entry in {@code dictionaries}.
+ */
+interface RowDecoder {
+  void decodeRow(ByteBuffer buf, int[] bounds, int fields, Object[] values, boolean[][] nulls,
+                 StringDictionary[] dictionaries, int row);
+}
@@ -0,0 +1,126 @@
+package org.chdb.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds and caches one {@link RowDecoder} per distinct result schema. A schema's decoder is a straight-line
+ * chain of per-column decode steps, specialized for each column's wire type, defined as a hidden class so the
+ * whole row decode can be inlined. If the template class file cannot be read, the chain is invoked through a
+ * plain wrapper instead.
+ */
+final class RowDecoders {
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+  private static final MethodType ROW_TYPE = MethodType.methodType(void.class, ByteBuffer.class, int[].class,
+      int.class, Object[].class, boolean[][].class, StringDictionary[].class, int.class);
+  private static final Map<String, RowDecoder> CACHE = new ConcurrentHashMap<>();
+
+  private RowDecoders() {
+  }
+
+  /** Returns the decoder for columns of the given {@link ChunkedDecoder} kinds and nullability. */
+  static RowDecoder forSchema(byte[] kinds, boolean[] nullable) {
+    return CACHE.computeIfAbsent(signature(kinds, nullable), key -> define(kinds, nullable));
+  }
+
+  private static String signature(byte[] kinds, boolean[] nullable) {
+    StringBuilder signature = new StringBuilder(kinds.length * 2);
+    for (int i = 0; i < kinds.length; i++) {
+      signature.append((char) ('0' + kinds[i])).append(nullable[i] ? '?' : '!');
+    }
+    return signature.toString();
+  }
+
+  private static RowDecoder define(byte[] kinds, boolean[] nullable) {
+    MethodHandle chain = MethodHandles.empty(ROW_TYPE);
+    for (int column = kinds.length - 1; column >= 0; column--) {
+      chain = MethodHandles.foldArguments(chain, columnStep(kinds[column], nullable[column], column));
+    }
+    RowDecoder generated = HiddenClasses.instantiate(RowDecoder.class, "GeneratedRowDecoder", chain);
+    if (generated != null) {
+      return generated;
+    }
+    MethodHandle decode = chain;
+    return (buf, bounds, fields, values, nulls, dictionaries, row) -> {
+      try {
+        decode.invokeExact(buf, bounds, fields, values, nulls, dictionaries, row);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    };
+  }
+
+  private static MethodHandle columnStep(byte kind, boolean nullable, int column) {
+    String name;
+    switch (kind) {
+      case ChunkedDecoder.LONG:
+        name = nullable ? "nullableLongColumn" : "longColumn";
+        break;
+      case ChunkedDecoder.DOUBLE:
+        name = nullable ? "nullableDoubleColumn" : "doubleColumn";
+        break;
+      default:
+        name = "stringColumn";
+    }
+    try {
+      MethodHandle step = LOOKUP.findStatic(RowDecoders.class, name, ROW_TYPE.insertParameterTypes(0, int.class));
+      return MethodHandles.insertArguments(step, 0, column);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void longColumn(int column, ByteBuffer buf, int[] bounds, int fields, Object[] values,
+                                 boolean[][] nulls, StringDictionary[] dictionaries, int row) {
+    if (column < fields) {
+      int slot = column << 1;
+      ((long[]) values[column])[row] = CsvScanner.parseLong(buf, bounds[slot], bounds[slot + 1]);
+    }
+  }
+
+  private static void nullableLongColumn(int column, ByteBuffer buf, int[] bounds, int fields, Object[] values,
+                                         boolean[][] nulls, StringDictionary[] dictionaries, int row) {
+    if (column < fields) {
+      int slot = column << 1;
+      if (CsvScanner.isNull(buf, bounds[slot], bounds[slot + 1])) {
+        nulls[column][row] = true;
+      } else {
+        ((long[]) values[column])[row] = CsvScanner.parseLong(buf, bounds[slot], bounds[slot + 1]);
+      }
+    }
+  }
+
+  private static void doubleColumn(int column, ByteBuffer buf, int[] bounds, int fields, Object[] values,
+                                   boolean[][] nulls, StringDictionary[] dictionaries, int row) {
+    if (column < fields) {
+      int slot = column << 1;
+      ((double[]) values[column])[row] = CsvScanner.parseDouble(buf, bounds[slot], bounds[slot + 1]);
+    }
+  }
+
+  private static void nullableDoubleColumn(int column, ByteBuffer buf, int[] bounds, int fields, Object[] values,
+                                           boolean[][] nulls, StringDictionary[] dictionaries, int row) {
+    if (column < fields) {
+      int slot = column << 1;
+      if (CsvScanner.isNull(buf, bounds[slot], bounds[slot + 1])) {
+        nulls[column][row] = true;
+      } else {
+        ((double[]) values[column])[row] = CsvScanner.parseDouble(buf, bounds[slot], bounds[slot + 1]);
+      }
+    }
+  }
+
+  private static void stringColumn(int column, ByteBuffer buf, int[] bounds, int fields, Object[] values,
+                                   boolean[][] nulls, StringDictionary[] dictionaries, int row) {
+    if (column < fields) {
+      int slot = column << 1;
+      ((String[]) values[column])[row] = dictionaries[column].decode(buf, bounds[slot], bounds[slot + 1]);
+    }
+  }
+}
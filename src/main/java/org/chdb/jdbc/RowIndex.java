@@ -0,0 +1,52 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Offsets of the CSV records in a result buffer. Row {@code i} spans {@code [start(i), end(i))}, excluding its
+ * line feed, so any row can be reached without scanning the rows before it.
+ */
+final class RowIndex {
+  private final int[] starts;
+  private final int count;
+
+  private RowIndex(int[] starts, int count) {
+    this.starts = starts;
+    this.count = count;
+  }
+
+  static RowIndex of(int[] starts, int count) {
+    return new RowIndex(starts, count);
+  }
+
+  /** Indexes the records of {@code buf} from {@code from} up to its limit. */
+  static RowIndex build(ByteBuffer buf, int from) {
+    int limit = buf.limit();
+    int[] starts = new int[16];
+    int count = 0;
+    int position = from;
+    while (position < limit) {
+      int end = CsvScanner.recordEnd(buf, position, limit);
+      if (count + 1 >= starts.length) {
+        starts = Arrays.copyOf(starts, starts.length << 1);
+      }
+      starts[count++] = position;
+      position = end + 1;
+    }
+    starts[count] = position;
+    return new RowIndex(starts, count);
+  }
+
+  int rowCount() {
+    return count;
+  }
+
+  int start(int row) {
+    return starts[row];
+  }
+
+  int end(int row) {
+    return starts[row + 1] - 1;
+  }
+}
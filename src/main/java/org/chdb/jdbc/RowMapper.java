@@ -0,0 +1,13 @@
+package org.chdb.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object. The result set passed in is positioned on the row and
+ * must not be moved or closed by the mapper.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+  T mapRow(ResultSet rs, int rowNum) throws SQLException;
+}
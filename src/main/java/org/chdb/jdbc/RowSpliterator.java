@@ -0,0 +1,82 @@
+package org.chdb.jdbc;
+
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a range of rows of a result. Splitting halves the row range, and each half maps its rows
+ * through its own cursor over the shared buffer and row index, so halves can be consumed concurrently. Streams
+ * are lazy, so every row checks that the result is still open before reading from its buffer.
+ */
+final class RowSpliterator<T> implements Spliterator<T> {
+  private static final int MIN_SPLIT = 1024;
+
+  private final ChdbResultSet source;
+  private final RowMapper<T> mapper;
+  private int from;
+  private final int to;
+  private ChdbResultSet view;
+
+  RowSpliterator(ChdbResultSet source, RowMapper<T> mapper, int from, int to) {
+    this.source = source;
+    this.mapper = mapper;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (from >= to) {
+      return false;
+    }
+    action.accept(map(from++));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    int end = to;
+    for (int row = from; row < end; row++) {
+      action.accept(map(row));
+    }
+    from = end;
+  }
+
+  private T map(int row) {
+    if (view == null) {
+      view = new ChdbResultSet(source);
+    }
+    view.moveTo(row);
+    try {
+      if (view.isClosed()) {
+        throw new SQLException("Result set is closed");
+      }
+      return mapper.mapRow(view, row + 1);
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    int size = to - from;
+    if (size < MIN_SPLIT) {
+      return null;
+    }
+    int mid = from + (size >>> 1);
+    RowSpliterator<T> prefix = new RowSpliterator<>(source, mapper, from, mid);
+    from = mid;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return to - from;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+  }
+}
@@ -0,0 +1,42 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+
+final class ScalarScanKernel implements ScanKernel {
+  static final ScalarScanKernel INSTANCE = new ScalarScanKernel();
+
+  private ScalarScanKernel() {
+  }
+
+  @Override
+  public int indexOf(ByteBuffer buf, int from, int to, byte b) {
+    for (int i = from; i < to; i++) {
+      if (buf.get(i) == b) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  @Override
+  public int indexOfEither(ByteBuffer buf, int from, int to, byte a, byte b) {
+    for (int i = from; i < to; i++) {
+      byte v = buf.get(i);
+      if (v == a || v == b) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  @Override
+  public int count(ByteBuffer buf, int from, int to, byte b) {
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      if (buf.get(i) == b) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
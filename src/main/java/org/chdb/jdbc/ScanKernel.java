@@ -0,0 +1,69 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Byte search primitives behind CSV record and field scanning. Offsets are absolute buffer positions and every
+ * search returns {@code to} when nothing matches.
+ */
+interface ScanKernel {
+  int indexOf(ByteBuffer buf, int from, int to, byte b);
+
+  int indexOfEither(ByteBuffer buf, int from, int to, byte a, byte b);
+
+  int count(ByteBuffer buf, int from, int to, byte b);
+
+  /** Quote-aware search for the line feed ending the record that starts at {@code from}. */
+  default int recordEnd(ByteBuffer buf, int from, int limit) {
+    int i = from;
+    while (true) {
+      i = indexOfEither(buf, i, limit, CsvScanner.QUOTE, CsvScanner.LF);
+      if (i >= limit || buf.get(i) == CsvScanner.LF) {
+        return i;
+      }
+      i = indexOf(buf, i + 1, limit, CsvScanner.QUOTE);
+      if (i >= limit) {
+        return limit;
+      }
+      i++;
+    }
+  }
+
+  /** Field splitting as described by {@link CsvScanner#splitFields}, over a record without its line end. */
+  default int splitFields(ByteBuffer buf, int start, int end, int[] bounds) {
+    int count = 0;
+    int fieldStart = start;
+    int i = start;
+    while (true) {
+      i = indexOfEither(buf, i, end, CsvScanner.QUOTE, CsvScanner.COMMA);
+      if (i >= end) {
+        break;
+      }
+      if (buf.get(i) == CsvScanner.COMMA) {
+        count = CsvScanner.store(bounds, count, fieldStart, i);
+        fieldStart = ++i;
+      } else {
+        i = indexOf(buf, i + 1, end, CsvScanner.QUOTE) + 1;
+      }
+    }
+    return CsvScanner.store(bounds, count, fieldStart, end);
+  }
+
+  /**
+   * Returns the vector kernel when the {@code jdk.incubator.vector} module is present and the platform has
+   * vectors of at least 16 bytes, otherwise the scalar kernel. {@code -Dchdb.scan.scalar=true} forces the
+   * scalar kernel.
+   */
+  static ScanKernel select() {
+    if (Boolean.getBoolean("chdb.scan.scalar")
+        || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      return ScalarScanKernel.INSTANCE;
+    }
+    try {
+      ScanKernel kernel = VectorScanKernel.create();
+      return kernel != null ? kernel : ScalarScanKernel.INSTANCE;
+    } catch (LinkageError | RuntimeException e) {
+      return ScalarScanKernel.INSTANCE;
+    }
+  }
+}
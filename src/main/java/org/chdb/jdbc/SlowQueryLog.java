@@ -0,0 +1,113 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs the native calls of a connection that take longer than {@code chdb.slowQuery.thresholdMillis}, with their
+ * settings and the statistics the engine reports. With {@code chdb.slowQuery.capture} set to {@code explain}, the
+ * pipeline of one slow SELECT in every {@code chdb.slowQuery.captureEvery} is read in the background through
+ * {@code EXPLAIN PIPELINE} and logged after it.
+ */
+final class SlowQueryLog {
+  static final String THRESHOLD = "chdb.slowQuery.thresholdMillis";
+  static final String CAPTURE = "chdb.slowQuery.capture";
+  static final String CAPTURE_EVERY = "chdb.slowQuery.captureEvery";
+
+  static final SlowQueryLog DISABLED = new SlowQueryLog(-1, "none", 1, null);
+
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final ExecutorService CAPTURES = Executors.newSingleThreadExecutor(r -> {
+    Thread thread = new Thread(r, "chdb-slow-query");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final long thresholdNanos;
+  private final boolean explain;
+  private final int captureEvery;
+  private final QueryContext.Engine engine;
+  private final AtomicLong slowQueries = new AtomicLong();
+
+  private SlowQueryLog(long thresholdMillis, String capture, int captureEvery, QueryContext.Engine engine) {
+    this.thresholdNanos = thresholdMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    this.explain = capture.equals("explain");
+    this.captureEvery = Math.max(captureEvery, 1);
+    this.engine = engine;
+  }
+
+  /** The log for the options of a connection; pipelines are explained by {@code engine}, as its queries run. */
+  static SlowQueryLog forConnection(Properties info, QueryContext.Engine engine) throws SQLException {
+    if (info == null || info.getProperty(THRESHOLD) == null) {
+      return DISABLED;
+    }
+    return new SlowQueryLog(ConnectionProperties.getLong(info, THRESHOLD, -1),
+        ConnectionProperties.getChoice(info, CAPTURE, "none", "none", "explain"),
+        ConnectionProperties.getInt(info, CAPTURE_EVERY, 1), engine);
+  }
+
+  /** Logs the call of {@code sql} if it took at least the threshold; result may hold the engine's error. */
+  void record(String sql, String[] settings, long nanos, LocalResultV2 result) {
+    if (thresholdNanos < 0 || nanos < thresholdNanos || !LOG.isLoggable(Level.WARNING)) {
+      return;
+    }
+    StringBuilder message = new StringBuilder("Slow query took ").append(TimeUnit.NANOSECONDS.toMillis(nanos))
+        .append(" ms");
+    if (result != null) {
+      ByteBuffer buf = result.getBuf();
+      message.append(" (engine ").append(Math.round(result.getElapsed() * 1000)).append(" ms, ")
+          .append(result.getRowsRead()).append(" rows and ").append(result.getBytesRead()).append(" bytes read, ")
+          .append(buf == null ? 0 : buf.capacity()).append(" bytes of output");
+      if (result.getErrorMessage() != null) {
+        message.append(", failed: ").append(result.getErrorMessage());
+      }
+      message.append(')');
+    }
+    message.append(" with settings ").append(Arrays.toString(settings)).append(": ").append(sql);
+    LOG.warning(message.toString());
+    if (explain && isSelect(sql) && slowQueries.getAndIncrement() % captureEvery == 0) {
+      CAPTURES.execute(() -> explain(sql, settings));
+    }
+  }
+
+  // Only queries that read are explained, so nothing is written twice.
+  private static boolean isSelect(String sql) {
+    String head = sql.stripLeading().toUpperCase(Locale.ROOT);
+    return (head.startsWith("SELECT") || head.startsWith("WITH")) && SqlScript.split(sql).size() == 1;
+  }
+
+  private void explain(String sql, String[] settings) {
+    LocalResultV2 result;
+    try {
+      result = engine.execute("EXPLAIN PIPELINE " + sql, "TSVRaw", settings);
+    } catch (SQLException e) {
+      LOG.log(Level.INFO, "Could not explain slow query: " + sql, e);
+      return;
+    }
+    if (result == null) {
+      return;
+    }
+    try {
+      if (result.getErrorMessage() != null) {
+        LOG.info("Could not explain slow query: " + result.getErrorMessage() + ": " + sql);
+      } else {
+        ByteBuffer buf = result.getBuf();
+        byte[] text = new byte[buf.remaining()];
+        buf.get(buf.position(), text);
+        LOG.info("Pipeline of slow query " + sql + "\n" + new String(text, StandardCharsets.UTF_8));
+      }
+    } finally {
+      result.close();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs a script of several statements in one engine call. Each statement is followed by a marker query that
+ * prints a random nonce and the statement's number, so the combined output can be cut back into the output of
+ * every statement: a part holding rows becomes a result set, and an empty part an update count.
+ */
+final class SqlScript {
+  private final List<String> statements;
+  private final String nonce = UUID.randomUUID().toString().replace("-", "");
+
+  private SqlScript(List<String> statements) {
+    this.statements = statements;
+  }
+
+  static SqlScript parse(String sql) {
+    return new SqlScript(split(sql));
+  }
+
+  List<String> getStatements() {
+    return statements;
+  }
+
+  /** Splits {@code sql} at semicolons outside of quotes and comments, dropping empty statements. */
+  static List<String> split(String sql) {
+    List<String> statements = new ArrayList<>();
+    int start = 0;
+    int i = 0;
+    int length = sql.length();
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i++;
+        while (i < length && sql.charAt(i) != c) {
+          i += sql.charAt(i) == '\\' ? 2 : 1;
+        }
+        i++;
+      } else if (c == '-' && sql.startsWith("--", i) || c == '#') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (c == '/' && sql.startsWith("/*", i)) {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (c == ';') {
+        add(statements, sql.substring(start, i));
+        start = ++i;
+      } else {
+        i++;
+      }
+    }
+    add(statements, sql.substring(Math.min(start, length)));
+    return statements;
+  }
+
+  private static void add(List<String> statements, String statement) {
+    String trimmed = statement.trim();
+    if (!trimmed.isEmpty() && !isComment(trimmed)) {
+      statements.add(trimmed);
+    }
+  }
+
+  // A statement made only of comments, such as the tail after the last semicolon of a script.
+  private static boolean isComment(String statement) {
+    return stripComments(statement).isEmpty();
+  }
+
+  private static String stripComments(String text) {
+    StringBuilder code = new StringBuilder();
+    int i = 0;
+    while (i < text.length()) {
+      if (text.startsWith("--", i) || text.charAt(i) == '#') {
+        int end = text.indexOf('\n', i);
+        i = end < 0 ? text.length() : end + 1;
+      } else if (text.startsWith("/*", i)) {
+        int end = text.indexOf("*/", i + 2);
+        i = end < 0 ? text.length() : end + 2;
+      } else {
+        code.append(text.charAt(i++));
+      }
+    }
+    return code.toString().trim();
+  }
+
+  /** The script to send to the engine, with a marker query after each statement. */
+  String framed() {
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < statements.size(); i++) {
+      // The semicolon goes on a line of its own, in case the statement ends with a line comment.
+      script.append(statements.get(i)).append("\n;\nSELECT '").append(marker(i)).append("' FORMAT TSVRaw;\n");
+    }
+    return script.toString();
+  }
+
+  private String marker(int statement) {
+    return nonce + ":" + statement;
+  }
+
+  /** Cuts the output of the framed script into the start and end offsets of each statement's output. */
+  int[] parts(ByteBuffer buf) throws SQLException {
+    int[] parts = new int[statements.size() * 2];
+    int from = buf.position();
+    for (int i = 0; i < statements.size(); i++) {
+      byte[] marker = (marker(i) + "\n").getBytes(StandardCharsets.US_ASCII);
+      int at = find(buf, from, marker);
+      if (at < 0) {
+        throw new SQLException("Output of statement " + (i + 1) + " is incomplete");
+      }
+      parts[i * 2] = from;
+      parts[i * 2 + 1] = at;
+      from = at + marker.length;
+    }
+    return parts;
+  }
+
+  // Markers are whole lines, so a match must start the buffer or follow a line feed.
+  private static int find(ByteBuffer buf, int from, byte[] marker) {
+    int limit = buf.limit() - marker.length;
+    if (limit < from) {
+      return -1;
+    }
+    for (int i = CsvScanner.KERNEL.indexOf(buf, from, limit + 1, marker[0]); i <= limit;
+        i = CsvScanner.KERNEL.indexOf(buf, i + 1, limit + 1, marker[0])) {
+      if (i > from && buf.get(i - 1) != CsvScanner.LF) {
+        continue;
+      }
+      int j = 1;
+      while (j < marker.length && buf.get(i + j) == marker[j]) {
+        j++;
+      }
+      if (j == marker.length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
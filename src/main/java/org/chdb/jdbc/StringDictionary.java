@@ -0,0 +1,136 @@
+package org.chdb.jdbc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Per-column cache that returns the same String instance for repeated cell values. Entries are keyed on the raw
+ * bytes of the field in the result buffer: a lookup hashes the slice, probes the table and compares bytes, so a
+ * hit costs no allocation or character decoding. An adaptive dictionary samples its hit rate and switches itself
+ * off for columns whose values rarely repeat; LowCardinality columns use a fixed one. The table starts small and
+ * doubles up to {@code CAPACITY}, so the many short results cost little. Not thread-safe.
+ */
+final class StringDictionary {
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int CAPACITY = 4096;
+  private static final int MAX_ENTRIES = CAPACITY / 2;
+  private static final int MAX_KEY_LENGTH = 64;
+  private static final int SAMPLE = 4096;
+
+  private final boolean adaptive;
+  private byte[][] keys = new byte[INITIAL_CAPACITY][];
+  private String[] values = new String[INITIAL_CAPACITY];
+  private int[] hashes = new int[INITIAL_CAPACITY];
+  private int size;
+  private int lookups;
+  private int hits;
+  private boolean disabled;
+
+  private StringDictionary(boolean adaptive) {
+    this.adaptive = adaptive;
+  }
+
+  /** A dictionary for a column of the given ClickHouse type. */
+  static StringDictionary forType(String type) {
+    return new StringDictionary(type == null || !type.startsWith("LowCardinality("));
+  }
+
+  /** Decodes the field {@code [start, end)} like {@link CsvScanner#decodeField}, reusing earlier instances. */
+  String decode(ByteBuffer buf, int start, int end) {
+    int length = end - start;
+    if (disabled || length > MAX_KEY_LENGTH || CsvScanner.isNull(buf, start, end)) {
+      return CsvScanner.decodeField(buf, start, end);
+    }
+    int hash = hash(buf, start, end);
+    int mask = keys.length - 1;
+    for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+      byte[] key = keys[slot];
+      if (key == null) {
+        String value = CsvScanner.decodeField(buf, start, end);
+        if (size < MAX_ENTRIES) {
+          key = new byte[length];
+          buf.get(start, key);
+          if (size + 1 > keys.length / 2) {
+            grow();
+            slot = free(hash);
+          }
+          keys[slot] = key;
+          values[slot] = value;
+          hashes[slot] = hash;
+          size++;
+        }
+        sample(false);
+        return value;
+      }
+      if (hashes[slot] == hash && matches(key, buf, start, length)) {
+        sample(true);
+        return values[slot];
+      }
+    }
+  }
+
+  // Doubles the table, keeping it at most half full.
+  private void grow() {
+    byte[][] oldKeys = keys;
+    String[] oldValues = values;
+    int[] oldHashes = hashes;
+    keys = new byte[oldKeys.length << 1][];
+    values = new String[keys.length];
+    hashes = new int[keys.length];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = free(oldHashes[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+
+  private int free(int hash) {
+    int mask = keys.length - 1;
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void sample(boolean hit) {
+    if (!adaptive) {
+      return;
+    }
+    if (hit) {
+      hits++;
+    }
+    if (++lookups == SAMPLE) {
+      if (hits * 4 < lookups) {
+        disabled = true;
+        keys = null;
+        values = null;
+        hashes = null;
+      }
+      lookups = 0;
+      hits = 0;
+    }
+  }
+
+  private static int hash(ByteBuffer buf, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + buf.get(i);
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean matches(byte[] key, ByteBuffer buf, int start, int length) {
+    if (key.length != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (key[i] != buf.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,162 @@
+package org.chdb.jdbc;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Scans 32 or 64 bytes per step, depending on the preferred vector width of the platform, and finishes the tail
+ * of each range with scalar code. Only loaded through {@link ScanKernel#select()}, after the incubator module is
+ * known to be present.
+ */
+final class VectorScanKernel implements ScanKernel {
+  // Masks are walked as the bits of a long, so wider platforms still scan 64 bytes per step.
+  private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() > Long.SIZE
+      ? ByteVector.SPECIES_512 : ByteVector.SPECIES_PREFERRED;
+
+  // The segment over the last buffer scanned, which is nearly always the buffer of the next scan too.
+  private volatile View last;
+
+  private record View(ByteBuffer buf, int base, int limit, MemorySegment segment) {
+  }
+
+  private VectorScanKernel() {
+  }
+
+  static VectorScanKernel create() {
+    return SPECIES.length() >= 16 ? new VectorScanKernel() : null;
+  }
+
+  // The segment of a buffer starts at its position, while scan offsets are absolute.
+  private View view(ByteBuffer buf) {
+    View view = last;
+    if (view == null || view.buf != buf || view.base != buf.position() || view.limit != buf.limit()) {
+      view = new View(buf, buf.position(), buf.limit(), MemorySegment.ofBuffer(buf));
+      last = view;
+    }
+    return view;
+  }
+
+  @Override
+  public int indexOf(ByteBuffer buf, int from, int to, byte b) {
+    View view = view(buf);
+    MemorySegment segment = view.segment;
+    int base = view.base;
+    int step = SPECIES.length();
+    int i = from;
+    for (int bound = to - step; i <= bound; i += step) {
+      VectorMask<Byte> hits = ByteVector.fromMemorySegment(SPECIES, segment, i - base, ByteOrder.nativeOrder()).eq(b);
+      if (hits.anyTrue()) {
+        return i + hits.firstTrue();
+      }
+    }
+    return ScalarScanKernel.INSTANCE.indexOf(buf, i, to, b);
+  }
+
+  @Override
+  public int indexOfEither(ByteBuffer buf, int from, int to, byte a, byte b) {
+    View view = view(buf);
+    MemorySegment segment = view.segment;
+    int base = view.base;
+    int step = SPECIES.length();
+    int i = from;
+    for (int bound = to - step; i <= bound; i += step) {
+      ByteVector v = ByteVector.fromMemorySegment(SPECIES, segment, i - base, ByteOrder.nativeOrder());
+      VectorMask<Byte> hits = v.eq(a).or(v.eq(b));
+      if (hits.anyTrue()) {
+        return i + hits.firstTrue();
+      }
+    }
+    return ScalarScanKernel.INSTANCE.indexOfEither(buf, i, to, a, b);
+  }
+
+  @Override
+  public int count(ByteBuffer buf, int from, int to, byte b) {
+    View view = view(buf);
+    MemorySegment segment = view.segment;
+    int base = view.base;
+    int step = SPECIES.length();
+    int count = 0;
+    int i = from;
+    for (int bound = to - step; i <= bound; i += step) {
+      count += ByteVector.fromMemorySegment(SPECIES, segment, i - base, ByteOrder.nativeOrder()).eq(b).trueCount();
+    }
+    return count + ScalarScanKernel.INSTANCE.count(buf, i, to, b);
+  }
+
+  // Classifies a whole vector of bytes at once and walks the hits as bits, so short records and fields do not
+  // pay for a vector load per delimiter.
+  @Override
+  public int recordEnd(ByteBuffer buf, int from, int limit) {
+    View view = view(buf);
+    MemorySegment segment = view.segment;
+    int base = view.base;
+    int step = SPECIES.length();
+    boolean quoted = false;
+    int i = from;
+    for (int bound = limit - step; i <= bound; i += step) {
+      ByteVector v = ByteVector.fromMemorySegment(SPECIES, segment, i - base, ByteOrder.nativeOrder());
+      long quotes = v.eq(CsvScanner.QUOTE).toLong();
+      long hits = quotes | v.eq(CsvScanner.LF).toLong();
+      while (hits != 0) {
+        int bit = Long.numberOfTrailingZeros(hits);
+        if ((quotes >>> bit & 1) != 0) {
+          quoted = !quoted;
+        } else if (!quoted) {
+          return i + bit;
+        }
+        hits &= hits - 1;
+      }
+    }
+    for (; i < limit; i++) {
+      byte b = buf.get(i);
+      if (b == CsvScanner.QUOTE) {
+        quoted = !quoted;
+      } else if (b == CsvScanner.LF && !quoted) {
+        return i;
+      }
+    }
+    return limit;
+  }
+
+  @Override
+  public int splitFields(ByteBuffer buf, int start, int end, int[] bounds) {
+    View view = view(buf);
+    MemorySegment segment = view.segment;
+    int base = view.base;
+    int step = SPECIES.length();
+    boolean quoted = false;
+    int count = 0;
+    int fieldStart = start;
+    int i = start;
+    for (int bound = end - step; i <= bound; i += step) {
+      ByteVector v = ByteVector.fromMemorySegment(SPECIES, segment, i - base, ByteOrder.nativeOrder());
+      long quotes = v.eq(CsvScanner.QUOTE).toLong();
+      long hits = quotes | v.eq(CsvScanner.COMMA).toLong();
+      while (hits != 0) {
+        int bit = Long.numberOfTrailingZeros(hits);
+        if ((quotes >>> bit & 1) != 0) {
+          quoted = !quoted;
+        } else if (!quoted) {
+          count = CsvScanner.store(bounds, count, fieldStart, i + bit);
+          fieldStart = i + bit + 1;
+        }
+        hits &= hits - 1;
+      }
+    }
+    for (; i < end; i++) {
+      byte b = buf.get(i);
+      if (b == CsvScanner.QUOTE) {
+        quoted = !quoted;
+      } else if (b == CsvScanner.COMMA && !quoted) {
+        count = CsvScanner.store(bounds, count, fieldStart, i);
+        fieldStart = i + 1;
+      }
+    }
+    return CsvScanner.store(bounds, count, fieldStart, end);
+  }
+}
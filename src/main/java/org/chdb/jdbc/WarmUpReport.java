@@ -0,0 +1,14 @@
+package org.chdb.jdbc;
+
+import java.time.Duration;
+
+/**
+ * Timings of {@link ChdbDriver#warmUp}. Loading the library and starting the engine only happen once per JVM, so
+ * they are zero for warm-ups after the first.
+ */
+public record WarmUpReport(Duration libraryLoad, Duration engineStart, Duration priming, int failedQueries) {
+  /** The time until the driver was ready for queries. */
+  public Duration timeToReady() {
+    return libraryLoad.plus(engineStart).plus(priming);
+  }
+}
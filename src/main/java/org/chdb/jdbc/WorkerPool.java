@@ -0,0 +1,444 @@
+package org.chdb.jdbc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.management.ManagementFactory;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Runs queries in a pool of worker processes ({@link ChdbWorker}), each with an engine of its own, so that an
+ * engine crash only takes down one worker. A worker writes each result to a file, which is mapped here and
+ * unlinked at once; the result is then read straight from the mapping and unmapped when it is closed. The socket
+ * and the result files live in a directory of the pool that only this user can enter, created under
+ * {@code /dev/shm} when possible, and only files inside it are ever mapped or unlinked. Queries go to the worker
+ * with the fewest queries in flight. Workers are pinged every {@code chdb.workers.healthCheckMillis}, and a
+ * worker that exits or stops answering is replaced in the background; the queries it was running fail.
+ *
+ * <p>Enabled by the connection property {@code chdb.workers}, the number of workers. Connections with the same
+ * options share a pool. {@code chdb.workers.jvmOptions} adds options to the worker JVMs.
+ */
+final class WorkerPool implements QueryContext.Engine {
+  static final String WORKERS = "chdb.workers";
+  static final String JVM_OPTIONS = "chdb.workers.jvmOptions";
+  static final String HEALTH_CHECK_MILLIS = "chdb.workers.healthCheckMillis";
+  static final String DIRECTORY = "chdb.workers.dir";
+
+  private static final Logger LOG = Logger.getLogger("org.chdb.jdbc");
+  private static final long START_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+  private static final Map<String, CompletableFuture<WorkerPool>> POOLS = new ConcurrentHashMap<>();
+  private static final AtomicLong IDS = new AtomicLong();
+  private static final ScheduledExecutorService HEALTH = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "chdb-worker-health");
+    thread.setDaemon(true);
+    return thread;
+  });
+  // Starting a worker takes seconds, so restarts do not hold up the health checks of other pools.
+  private static final ExecutorService RESTARTS = Executors.newCachedThreadPool(r -> {
+    Thread thread = new Thread(r, "chdb-worker-restart");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final List<String> command;
+  private final Path directory;
+  private final long healthCheckMillis;
+  private final AtomicReferenceArray<Worker> workers;
+  private final Set<Integer> restarting = ConcurrentHashMap.newKeySet();
+  private volatile boolean closed;
+  private ScheduledFuture<?> healthCheck;
+
+  // Creates the directory of the pool under base; the workers start in open().
+  WorkerPool(int size, List<String> command, Path base, long healthCheckMillis) throws IOException {
+    this.command = command;
+    this.directory = Files.createTempDirectory(base, "chdb-workers-",
+        PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------"))).toAbsolutePath();
+    this.directory.toFile().deleteOnExit();
+    this.healthCheckMillis = healthCheckMillis;
+    this.workers = new AtomicReferenceArray<>(size);
+  }
+
+  /** The pool for the options of a connection, or null if queries run in this process. */
+  static WorkerPool forConnection(Properties info) throws SQLException {
+    int size = ConnectionProperties.getInt(info, WORKERS, 0);
+    if (size <= 0) {
+      return null;
+    }
+    String jvmOptions = info.getProperty(JVM_OPTIONS, "");
+    long healthCheckMillis = ConnectionProperties.getLong(info, HEALTH_CHECK_MILLIS, 5000);
+    if (healthCheckMillis <= 0) {
+      throw new SQLException("Connection property " + HEALTH_CHECK_MILLIS + " must be positive: "
+          + healthCheckMillis);
+    }
+    Path base = baseDirectory(info.getProperty(DIRECTORY));
+    String key = size + "|" + jvmOptions + "|" + healthCheckMillis + "|" + base;
+    // The pool is started by the connection that created its entry, outside any lock; others wait for it.
+    CompletableFuture<WorkerPool> created = new CompletableFuture<>();
+    CompletableFuture<WorkerPool> pool = POOLS.putIfAbsent(key, created);
+    if (pool == null) {
+      pool = created;
+      try {
+        WorkerPool started = new WorkerPool(size, command(jvmOptions, ChdbWorker.class.getName()), base,
+            healthCheckMillis);
+        started.open();
+        created.complete(started);
+      } catch (IOException | SQLException | RuntimeException e) {
+        POOLS.remove(key, created);
+        created.completeExceptionally(e);
+      }
+    }
+    try {
+      return pool.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof SQLException ? (SQLException) e.getCause()
+          : new SQLException("Could not start worker processes", e.getCause());
+    }
+  }
+
+  private static Path baseDirectory(String configured) {
+    if (configured != null) {
+      return Paths.get(configured);
+    }
+    Path shm = Paths.get("/dev/shm");
+    return Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+  }
+
+  static List<String> command(String jvmOptions, String mainClass) {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    // The options the driver itself needs are passed on; agents and debuggers are not.
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (argument.startsWith("--add-modules") || argument.equals("--enable-preview")
+          || argument.startsWith("-Djava.library.path=") || argument.startsWith("-Dchdb.")) {
+        command.add(argument);
+      }
+    }
+    for (String option : jvmOptions.trim().split("\\s+")) {
+      if (!option.isEmpty()) {
+        command.add(option);
+      }
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(mainClass);
+    return command;
+  }
+
+  // Starts every worker and schedules the health checks; on failure, the pool is closed.
+  void open() throws SQLException {
+    for (int slot = 0; slot < workers.length(); slot++) {
+      try {
+        workers.set(slot, start(slot));
+      } catch (IOException e) {
+        close();
+        throw new SQLException("Could not start worker process " + slot, e);
+      }
+    }
+    healthCheck = HEALTH.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  // Stops the workers and removes the directory of the pool. Pools of connections live as long as the driver;
+  // this is for pools created apart from them.
+  void close() {
+    closed = true;
+    if (healthCheck != null) {
+      healthCheck.cancel(false);
+    }
+    for (int slot = 0; slot < workers.length(); slot++) {
+      Worker worker = workers.getAndSet(slot, null);
+      if (worker != null) {
+        worker.fail("Worker pool closed");
+      }
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      LOG.log(Level.FINE, "Could not remove " + directory, e);
+    }
+  }
+
+  Path directory() {
+    return directory;
+  }
+
+  private Worker start(int slot) throws IOException {
+    Path socket = directory.resolve("chdb-" + ProcessHandle.current().pid() + "-" + slot + "-" + IDS.incrementAndGet()
+        + ".sock");
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      server.configureBlocking(false);
+      List<String> arguments = new ArrayList<>(command);
+      arguments.add(socket.toString());
+      arguments.add(directory.toString());
+      Process process = new ProcessBuilder(arguments).inheritIO().start();
+      long deadline = System.nanoTime() + START_TIMEOUT_NANOS;
+      SocketChannel channel;
+      while ((channel = server.accept()) == null) {
+        if (!process.isAlive() || System.nanoTime() > deadline) {
+          process.destroyForcibly();
+          throw new IOException("Worker process did not connect back");
+        }
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          process.destroyForcibly();
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while starting a worker process", e);
+        }
+      }
+      channel.configureBlocking(true);
+      Worker worker = new Worker(slot, process, channel);
+      Thread reader = new Thread(worker::read, "chdb-worker-" + slot);
+      reader.setDaemon(true);
+      reader.start();
+      return worker;
+    } finally {
+      Files.deleteIfExists(socket);
+    }
+  }
+
+  /** Runs {@code sql} on the least loaded worker; like the engine, an engine error comes back inside the result. */
+  @Override
+  public LocalResultV2 execute(String sql, String format, String[] settings) throws SQLException {
+    Worker worker = null;
+    for (int slot = 0; slot < workers.length(); slot++) {
+      Worker candidate = workers.get(slot);
+      if (candidate != null && !candidate.dead
+          && (worker == null || candidate.pending.size() < worker.pending.size())) {
+        worker = candidate;
+      }
+    }
+    if (worker == null) {
+      throw new SQLException("No worker process is running");
+    }
+    try {
+      return worker.send(sql, format, settings).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a worker process", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+    }
+  }
+
+  private void checkHealth() {
+    long now = System.nanoTime();
+    long healthCheckNanos = TimeUnit.MILLISECONDS.toNanos(healthCheckMillis);
+    for (int slot = 0; slot < workers.length(); slot++) {
+      Worker worker = workers.get(slot);
+      if (worker == null || worker.dead) {
+        restart(slot, worker);
+      } else if (!worker.process.isAlive()) {
+        worker.fail("Worker process exited with " + worker.process.exitValue());
+      } else if (worker.pingSent != 0 && now - worker.pingSent > healthCheckNanos) {
+        worker.fail("Worker process stopped answering health checks");
+      } else if (worker.pingSent == 0) {
+        worker.ping(now);
+      }
+    }
+  }
+
+  // Replaces the worker of slot in the background, unless a restart of the slot is already under way.
+  private void restart(int slot, Worker failed) {
+    if (closed || !restarting.add(slot)) {
+      return;
+    }
+    RESTARTS.execute(() -> {
+      try {
+        if (closed || !workers.compareAndSet(slot, failed, null)) {
+          return;
+        }
+        Worker worker = start(slot);
+        workers.set(slot, worker);
+        if (closed) {
+          worker.fail("Worker pool closed");
+        } else {
+          LOG.info("Restarted worker process " + slot);
+        }
+      } catch (IOException e) {
+        // The next health check tries again.
+        LOG.log(Level.WARNING, "Could not restart worker process " + slot, e);
+      } finally {
+        restarting.remove(slot);
+      }
+    });
+  }
+
+  // Maps a result file and unlinks it; the mapping stays valid until the result is closed. The name comes from
+  // the worker, so anything but a result file of this pool is refused and left alone.
+  LocalResultV2 map(Path file, long length, long rowsRead, long bytesRead, double elapsed) throws IOException {
+    Path normalized = file.toAbsolutePath().normalize();
+    if (!directory.equals(normalized.getParent()) || !normalized.getFileName().toString().endsWith(".result")) {
+      throw new IOException("Not a result file of the worker pool: " + file);
+    }
+    try (FileChannel channel = FileChannel.open(normalized, StandardOpenOption.READ, LinkOption.NOFOLLOW_LINKS)) {
+      if (length == 0) {
+        return new LocalResultV2(ByteBuffer.allocate(0), rowsRead, bytesRead, elapsed, null);
+      }
+      Arena arena = Arena.ofShared();
+      MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, length, arena);
+      return LocalResultV2.external(segment.asByteBuffer(), rowsRead, bytesRead, elapsed, arena::close);
+    } finally {
+      Files.deleteIfExists(normalized);
+    }
+  }
+
+  private final class Worker {
+    private final int slot;
+    private final Process process;
+    private final SocketChannel channel;
+    private final DataOutputStream out;
+    private final Map<Long, CompletableFuture<LocalResultV2>> pending = new ConcurrentHashMap<>();
+    private volatile long pingSent;
+    private volatile boolean dead;
+
+    Worker(int slot, Process process, SocketChannel channel) {
+      this.slot = slot;
+      this.process = process;
+      this.channel = channel;
+      this.out = new DataOutputStream(new BufferedOutputStream(ChdbWorker.output(channel)));
+    }
+
+    CompletableFuture<LocalResultV2> send(String sql, String format, String[] settings) {
+      long id = IDS.incrementAndGet();
+      CompletableFuture<LocalResultV2> reply = new CompletableFuture<>();
+      pending.put(id, reply);
+      try {
+        synchronized (out) {
+          out.writeLong(id);
+          out.writeByte(ChdbWorker.QUERY);
+          ChdbWorker.writeString(out, sql);
+          ChdbWorker.writeString(out, format);
+          out.writeInt(settings.length);
+          for (String setting : settings) {
+            ChdbWorker.writeString(out, setting);
+          }
+          out.flush();
+        }
+      } catch (IOException e) {
+        fail("Could not send a query to worker process " + slot + ": " + e);
+      }
+      // fail() marks the worker dead before it fails what is pending, so no query can be left waiting.
+      if (dead && pending.remove(id) != null) {
+        reply.completeExceptionally(new SQLException("Worker process " + slot + " failed"));
+      }
+      return reply;
+    }
+
+    void ping(long now) {
+      pingSent = now;
+      try {
+        synchronized (out) {
+          out.writeLong(IDS.incrementAndGet());
+          out.writeByte(ChdbWorker.PING);
+          out.flush();
+        }
+      } catch (IOException e) {
+        fail("Could not ping worker process " + slot + ": " + e);
+      }
+    }
+
+    void read() {
+      DataInputStream in = new DataInputStream(new BufferedInputStream(ChdbWorker.input(channel)));
+      try {
+        while (true) {
+          long id = in.readLong();
+          byte status = in.readByte();
+          if (status == ChdbWorker.PONG) {
+            pingSent = 0;
+            continue;
+          }
+          CompletableFuture<LocalResultV2> reply = pending.remove(id);
+          if (status == ChdbWorker.ERROR) {
+            String message = ChdbWorker.readString(in);
+            if (reply != null) {
+              reply.complete(new LocalResultV2(null, 0, 0, 0, message));
+            }
+            continue;
+          }
+          Path file = Paths.get(ChdbWorker.readString(in));
+          long length = in.readLong();
+          long rowsRead = in.readLong();
+          long bytesRead = in.readLong();
+          double elapsed = in.readDouble();
+          try {
+            LocalResultV2 result = map(file, length, rowsRead, bytesRead, elapsed);
+            if (reply == null || !reply.complete(result)) {
+              result.close();
+            }
+          } catch (IOException e) {
+            if (reply != null) {
+              reply.completeExceptionally(new SQLException("Could not map the result of worker process " + slot, e));
+            }
+          }
+        }
+      } catch (IOException e) {
+        fail("Lost worker process " + slot + ": " + e);
+      }
+    }
+
+    void fail(String reason) {
+      synchronized (this) {
+        if (dead) {
+          return;
+        }
+        dead = true;
+      }
+      if (!closed) {
+        LOG.warning(reason);
+      }
+      process.destroyForcibly();
+      try {
+        channel.close();
+      } catch (IOException ignored) {
+        // The process is gone either way.
+      }
+      for (Long id : pending.keySet()) {
+        CompletableFuture<LocalResultV2> reply = pending.remove(id);
+        if (reply != null) {
+          reply.completeExceptionally(new SQLException(reason));
+        }
+      }
+      restart(slot, this);
+    }
+  }
+}
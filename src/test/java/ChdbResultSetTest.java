@@ -0,0 +1,207 @@
+import org.chdb.jdbc.ChdbBulkReader;
+import org.chdb.jdbc.ChdbResultSet;
+import org.chdb.jdbc.LocalResultV2;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Struct;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbResultSetTest {
+
+  static ChdbResultSet resultSet(String csv) {
+    ByteBuffer buf = ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+    return new ChdbResultSet(new LocalResultV2(buf, 0, 0, 0, null));
+  }
+
+  @Test
+  public void decodesColumnsOfEachRow() throws SQLException {
+    ChdbResultSet rs = resultSet("1,\"a\",2.5\n2,\"b,c\",\\N\n");
+    assertTrue(rs.next());
+    assertEquals(1L, rs.getLong(1));
+    assertEquals("a", rs.getString(2));
+    assertEquals(2.5, rs.getDouble(3));
+    assertTrue(rs.next());
+    assertEquals("b,c", rs.getString(2));
+    assertNull(rs.getString(3));
+    assertTrue(rs.wasNull());
+    assertFalse(rs.next());
+  }
+
+  @Test
+  public void keepsQuotedLineFeedsInsideOneRow() throws SQLException {
+    ChdbResultSet rs = resultSet("\"x\ny\",\"say \"\"hi\"\"\"\n");
+    assertTrue(rs.next());
+    assertEquals("x\ny", rs.getString(1));
+    assertEquals("say \"hi\"", rs.getString(2));
+    assertFalse(rs.next());
+  }
+
+  @Test
+  public void streamsRowsInParallelInOrder() throws SQLException {
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      csv.append(i).append(",\"v").append(i).append("\"\n");
+    }
+    ChdbResultSet rs = resultSet(csv.toString());
+    assertTrue(rs.next());
+    long[] ids = rs.stream((row, rowNum) -> row.getLong(1)).parallel().mapToLong(Long::longValue).toArray();
+    assertEquals(9_999, ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      assertEquals(i + 1, ids[i]);
+    }
+    assertFalse(rs.next());
+  }
+
+  @Test
+  public void streamStopsReadingOnceTheResultIsClosed() throws SQLException {
+    ChdbResultSet rs = resultSet("1\n2\n3\n");
+    Stream<Long> ids = rs.stream((row, rowNum) -> row.getLong(1));
+    rs.close();
+    RuntimeException e = assertThrows(RuntimeException.class, () -> ids.forEach(id -> { }));
+    assertTrue(e.getCause() instanceof SQLException);
+  }
+
+  record Point(long id, String label, Double weight) {
+  }
+
+  @Test
+  public void mapsRowsToRecordsByPosition() throws SQLException {
+    ChdbResultSet rs = resultSet("1,\"a\",0.5\n2,\"b\",\\N\n");
+    assertTrue(rs.next());
+    assertEquals(new Point(1, "a", 0.5), rs.mapTo(Point.class));
+    assertTrue(rs.next());
+    assertEquals(new Point(2, "b", null), rs.mapTo(Point.class));
+    assertNull(rs.getObject(3, Double.class));
+    assertEquals(Long.valueOf(2), rs.getObject(1, Long.class));
+  }
+
+  @Test
+  public void bulkReadsColumnsIntoCallerArrays() throws SQLException {
+    ChdbResultSet rs = resultSet("1,\"x\",0.25\n-2,\"y\",\\N\n3,\"z\",1e3\n");
+    ChdbBulkReader reader = rs.unwrap(ChdbBulkReader.class);
+    long[] ids = new long[4];
+    double[] values = new double[4];
+    long[] nulls = new long[1];
+    assertEquals(3, reader.readLongs(1, ids, 1, 3));
+    assertEquals(3, reader.readDoubles(3, values, nulls, 1, 3));
+    assertArrayEquals(new long[] {0, 1, -2, 3}, ids);
+    assertArrayEquals(new double[] {0, 0.25, 0, 1000}, values);
+    assertEquals(1L << 2, nulls[0]);
+    reader.setPosition(2);
+    assertEquals(1, reader.readLongs(1, ids, 0, 4));
+    assertEquals(3L, ids[0]);
+  }
+
+  @Test
+  public void bulkReadsFailCleanlyOnBadCellsAndClosedResults() throws SQLException {
+    ChdbResultSet rs = resultSet("-9223372036854775808,9223372036854775807\n18446744073709551615,x\n");
+    ChdbBulkReader reader = rs.unwrap(ChdbBulkReader.class);
+    long[] values = new long[2];
+    assertEquals(1, reader.readLongs(1, values, 0, 1));
+    assertEquals(1, reader.readLongs(2, values, 1, 1));
+    assertArrayEquals(new long[] {Long.MIN_VALUE, Long.MAX_VALUE}, values);
+    assertThrows(SQLException.class, () -> reader.readLongs(1, values, 0, 2));
+    reader.setPosition(1);
+    assertThrows(SQLException.class, () -> reader.readDoubles(2, new double[1], 0, 1));
+    rs.close();
+    assertThrows(SQLException.class, () -> reader.readLongs(1, values, 0, 1));
+  }
+
+  @Test
+  public void decodesTemporalAndDecimalCells() throws SQLException {
+    ChdbResultSet rs = resultSet("\"2024-02-29\",\"2024-02-29 13:45:07.125\",-12.50,\\N\n"
+        + "\"1969-12-31\",\"1969-12-31 23:59:59\",123456789012.3456,\"2024-02-29\"\n");
+    assertTrue(rs.next());
+    assertEquals(LocalDate.of(2024, 2, 29), rs.getObject(1, LocalDate.class));
+    assertEquals(LocalDateTime.of(2024, 2, 29, 13, 45, 7, 125_000_000), rs.getObject(2, LocalDateTime.class));
+    assertEquals(new BigDecimal("-12.50"), rs.getBigDecimal(3));
+    assertNull(rs.getDate(4));
+    assertTrue(rs.wasNull());
+    assertTrue(rs.next());
+    assertEquals(Date.valueOf("1969-12-31"), rs.getDate(1));
+    assertEquals(Timestamp.valueOf("1969-12-31 23:59:59"), rs.getTimestamp(2));
+    assertEquals(new BigDecimal("123456789012.3456"), rs.getBigDecimal(3));
+    assertSame(rs.getObject(4, LocalDate.class), rs.getObject(4, LocalDate.class));
+  }
+
+  @Test
+  public void decodesNestedArraysMapsAndTuples() throws SQLException {
+    ChdbResultSet rs = resultSet("\"[1,-2,3]\",\"[0.5,1e3]\",\"{'a':[1],'b\\'c':[]}\",\"(7,'say \"\"hi\"\"',NULL)\"\n");
+    assertTrue(rs.next());
+    assertArrayEquals(new long[] {1, -2, 3}, (long[]) rs.getArray(1).getArray());
+    assertArrayEquals(new double[] {0.5, 1000}, (double[]) rs.getArray(2).getArray());
+    assertArrayEquals(new long[] {-2, 3}, (long[]) rs.getArray(1).getArray(2, 2));
+    Map<?, ?> map = rs.getObject(3, Map.class);
+    assertEquals(2, map.size());
+    assertArrayEquals(new long[] {1}, (long[]) ((Array) map.get("a")).getArray());
+    assertArrayEquals(new Object[0], (Object[]) ((Array) map.get("b'c")).getArray());
+    assertArrayEquals(new Object[] {7L, "say \"hi\"", null}, rs.getObject(4, Struct.class).getAttributes());
+    assertThrows(SQLException.class, () -> rs.getArray(3));
+  }
+
+  @Test
+  public void streamsCellBytesInPlace() throws SQLException, IOException {
+    StringBuilder payload = new StringBuilder();
+    for (int i = 0; i < 5_000; i++) {
+      payload.append("{\"\"k\"\":").append(i).append("},");
+    }
+    ChdbResultSet rs = resultSet("\"" + payload + "\",plain,\\N\n");
+    assertTrue(rs.next());
+    String expected = payload.toString().replace("\"\"", "\"");
+    InputStream in = rs.getBinaryStream(1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] chunk = new byte[7];
+    for (int n; (n = in.read(chunk)) > 0; ) {
+      out.write(chunk, 0, n);
+    }
+    assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+    assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), rs.getBytes(1));
+    assertEquals("plain", new BufferedReader(rs.getCharacterStream(2)).readLine());
+    assertNull(rs.getBinaryStream(3));
+    assertTrue(rs.wasNull());
+  }
+
+  @Test
+  public void scrollsBackAndForthOverRows() throws SQLException {
+    ChdbResultSet rs = resultSet("1\n2\n3\n4\n");
+    assertTrue(rs.isBeforeFirst());
+    assertTrue(rs.last());
+    assertEquals(4, rs.getInt(1));
+    assertEquals(4, rs.getRow());
+    assertTrue(rs.previous());
+    assertEquals(3, rs.getInt(1));
+    assertTrue(rs.absolute(-4));
+    assertTrue(rs.isFirst());
+    assertTrue(rs.relative(2));
+    assertEquals(3, rs.getInt(1));
+    assertFalse(rs.relative(5));
+    assertTrue(rs.isAfterLast());
+    assertEquals(0, rs.getRow());
+    rs.beforeFirst();
+    assertTrue(rs.next());
+    assertEquals(1, rs.getInt(1));
+  }
+
+  @Test
+  public void rejectsColumnOutsideRow() throws SQLException {
+    ChdbResultSet rs = resultSet("1,2\n");
+    assertTrue(rs.next());
+    assertThrows(SQLException.class, () -> rs.getString(3));
+  }
+}
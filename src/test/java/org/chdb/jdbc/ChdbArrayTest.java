@@ -0,0 +1,39 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbArrayTest {
+
+  static ChdbResultSet typed(String csv) {
+    ByteBuffer buf = ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8));
+    return new ChdbResultSet(new LocalResultV2(buf, 0, 0, 0, null), true);
+  }
+
+  @Test
+  public void decodesIntegersWiderThanALongExactly() throws SQLException {
+    ChdbResultSet rs = typed("\"a\",\"b\",\"c\",\"d\"\n"
+        + "\"Array(Int64)\",\"Array(UInt64)\",\"Array(Int128)\",\"Array(UInt32)\"\n"
+        + "\"[-9223372036854775808,1]\",\"[18446744073709551615,0]\","
+        + "\"[-170141183460469231731687303715884105728]\",\"[4294967295]\"\n");
+    assertTrue(rs.next());
+    Array signed = rs.getArray(1);
+    assertEquals(Types.BIGINT, signed.getBaseType());
+    assertArrayEquals(new long[] {Long.MIN_VALUE, 1}, (long[]) signed.getArray());
+    Array unsigned = rs.getArray(2);
+    assertEquals(Types.NUMERIC, unsigned.getBaseType());
+    assertArrayEquals(new Object[] {new BigInteger("18446744073709551615"), BigInteger.ZERO},
+        (Object[]) unsigned.getArray());
+    assertArrayEquals(new Object[] {new BigInteger("-170141183460469231731687303715884105728")},
+        (Object[]) rs.getArray(3).getArray());
+    assertArrayEquals(new long[] {4294967295L}, (long[]) rs.getArray(4).getArray());
+  }
+}
@@ -0,0 +1,125 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbMergeSpecTest {
+
+  static ByteBuffer part(String header, String... rows) {
+    return ByteBuffer.wrap((header + String.join("", rows)).getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String merge(ChdbMergeSpec spec, ByteBuffer... parts) throws SQLException {
+    return StandardCharsets.UTF_8.decode(spec.merge(List.of(parts))).toString();
+  }
+
+  static List<String> column(String merged, int column) {
+    List<String> values = new ArrayList<>();
+    String[] lines = merged.split("\n");
+    for (int i = 2; i < lines.length; i++) {
+      values.add(lines[i].split(",")[column]);
+    }
+    return values;
+  }
+
+  @Test
+  public void mergesSortedPartitionsByValue() throws SQLException {
+    String header = "\"id\",\"v\"\n\"Int32\",\"Nullable(Float64)\"\n";
+    String merged = merge(ChdbMergeSpec.orderBy("id"),
+        part(header, "2,0.5\n", "10,1\n"),
+        part(header, "9,\\N\n", "11,2\n"));
+    assertTrue(merged.startsWith(header));
+    assertEquals(List.of("2", "9", "10", "11"), column(merged, 0));
+    merged = merge(ChdbMergeSpec.orderBy("v DESC"),
+        part(header, "1,2\n", "2,\\N\n"),
+        part(header, "3,10\n", "4,-1\n"));
+    assertEquals(List.of("3", "1", "4", "2"), column(merged, 0));
+  }
+
+  @Test
+  public void ordersEnumsAndAddressesAsTheEngineDoes() throws SQLException {
+    String header = "\"e\",\"ip4\",\"ip6\"\n\"Enum8('z' = 1, 'it\\'s' = 2, 'a' = 3)\",\"IPv4\",\"IPv6\"\n";
+    String merged = merge(ChdbMergeSpec.orderBy("e"),
+        part(header, "\"z\",\"9.0.0.1\",\"::1\"\n", "\"a\",\"9.0.0.2\",\"::2\"\n"),
+        part(header, "\"it's\",\"9.0.0.3\",\"::3\"\n"));
+    assertEquals(List.of("\"z\"", "\"it's\"", "\"a\""), column(merged, 0));
+    merged = merge(ChdbMergeSpec.orderBy("ip4"),
+        part(header, "\"z\",\"9.0.0.1\",\"::1\"\n", "\"z\",\"10.0.0.1\",\"::1\"\n"),
+        part(header, "\"z\",\"9.255.0.0\",\"::1\"\n"));
+    assertEquals(List.of("\"9.0.0.1\"", "\"9.255.0.0\"", "\"10.0.0.1\""), column(merged, 1));
+    merged = merge(ChdbMergeSpec.orderBy("ip6"),
+        part(header, "\"z\",\"9.0.0.1\",\"::9\"\n", "\"z\",\"9.0.0.1\",\"::ffff:1.2.3.4\"\n"),
+        part(header, "\"z\",\"9.0.0.1\",\"::10\"\n", "\"z\",\"9.0.0.1\",\"2001:db8::1\"\n"));
+    assertEquals(List.of("\"::9\"", "\"::10\"", "\"::ffff:1.2.3.4\"", "\"2001:db8::1\""), column(merged, 2));
+  }
+
+  @Test
+  public void rejectsKeysItCannotOrder() {
+    String header = "\"id\",\"n\"\n\"UUID\",\"Array(Int32)\"\n";
+    ByteBuffer part = part(header, "\"61f0c404-5cb3-11e7-907b-a6006ad3dba0\",\"[1]\"\n");
+    assertThrows(SQLException.class, () -> merge(ChdbMergeSpec.orderBy("id"), part.duplicate()));
+    assertThrows(SQLException.class, () -> merge(ChdbMergeSpec.orderBy("n"), part.duplicate()));
+    assertThrows(SQLException.class, () -> merge(ChdbMergeSpec.groupBy("n").max("id"), part.duplicate()));
+  }
+
+  @Test
+  public void reaggregatesGroupsInWiderSumTypes() throws SQLException {
+    String header = "\"k\",\"s\",\"d\",\"lo\",\"hi\"\n"
+        + "\"String\",\"UInt8\",\"Nullable(Decimal(9, 2))\",\"Int16\",\"Enum8('b' = 1, 'a' = 2)\"\n";
+    String merged = merge(ChdbMergeSpec.groupBy("k").sum("s").sum("d").min("lo").max("hi"),
+        part(header, "\"x\",200,1.50,-3,\"b\"\n", "\"y\",1,\\N,7,\"a\"\n"),
+        part(header, "\"x\",100,2.25,-20,\"a\"\n"));
+    String[] lines = merged.split("\n");
+    assertEquals("\"String\",\"UInt64\",\"Nullable(Decimal(38, 2))\",\"Int16\",\"Enum8('b' = 1, 'a' = 2)\"",
+        lines[1]);
+    assertEquals("\"x\",300,3.75,-20,\"a\"", lines[2]);
+    assertEquals("\"y\",1,\\N,7,\"a\"", lines[3]);
+    assertEquals(4, lines.length);
+  }
+
+  @Test
+  public void widensSumTypesAsTheEngine() {
+    assertEquals("Int64", ChdbMergeSpec.sumType("Int8"));
+    assertEquals("UInt64", ChdbMergeSpec.sumType("UInt32"));
+    assertEquals("Int128", ChdbMergeSpec.sumType("Int128"));
+    assertEquals("Nullable(Float64)", ChdbMergeSpec.sumType("Nullable(Float32)"));
+    assertEquals("Decimal(38, 4)", ChdbMergeSpec.sumType("Decimal64(4)"));
+    assertEquals("Decimal(76, 3)", ChdbMergeSpec.sumType("Decimal(50, 3)"));
+  }
+
+  @Test
+  public void rejectsSumsOfNonNumbers() {
+    String header = "\"k\",\"e\"\n\"String\",\"Enum8('a' = 1)\"\n";
+    assertThrows(SQLException.class,
+        () -> merge(ChdbMergeSpec.groupBy("k").sum("e"), part(header, "\"x\",\"a\"\n")));
+  }
+
+  @Test
+  public void chargesTheMergedCopyToTheAccount() throws SQLException {
+    MemoryAccount account = MemoryAccount.forConnection(new Properties());
+    try {
+      String header = "\"id\"\n\"Int64\"\n";
+      List<LocalResultV2> results = List.of(
+          new LocalResultV2(part(header, "1\n"), 1, 8, 0.5, null),
+          new LocalResultV2(part(header, "2\n"), 1, 8, 0.25, null));
+      LocalResultV2 merged = ChdbStatement.merge(results, ChdbMergeSpec.concat(), account);
+      assertEquals(header + "1\n2\n", StandardCharsets.UTF_8.decode(merged.getBuf().duplicate()).toString());
+      assertEquals(2, merged.getRowsRead());
+      assertEquals(merged.getBuf().capacity(), account.getLiveBytes());
+      assertEquals(1, account.getLiveResults());
+      merged.close();
+      assertEquals(0, account.getLiveBytes());
+      assertEquals(0, account.getLiveResults());
+    } finally {
+      account.close();
+    }
+  }
+}
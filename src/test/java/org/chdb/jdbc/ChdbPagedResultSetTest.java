@@ -0,0 +1,81 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbPagedResultSetTest {
+
+  // Answers the page queries it expects with canned CSVWithNamesAndTypes output, and fails any other query.
+  static final class PageEngine implements QueryContext.Engine {
+    final Map<String, String> pages = new HashMap<>();
+    final List<String> queries = new ArrayList<>();
+
+    @Override
+    public synchronized LocalResultV2 execute(String sql, String format, String[] settings) {
+      queries.add(sql);
+      String csv = pages.get(sql);
+      if (csv == null) {
+        return new LocalResultV2(null, 0, 0, 0, "Unexpected query: " + sql);
+      }
+      return new LocalResultV2(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), 0, 0, 0, null);
+    }
+  }
+
+  static List<String> readAll(ResultSet rs) throws SQLException {
+    List<String> values = new ArrayList<>();
+    while (rs.next()) {
+      values.add(rs.getString(1) + ":" + rs.getString(2));
+    }
+    rs.close();
+    return values;
+  }
+
+  @Test
+  public void boundsEachPageByTheLastKey() throws SQLException {
+    String header = "\"id\",\"v\"\n\"UInt32\",\"String\"\n";
+    PageEngine engine = new PageEngine();
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) ORDER BY id ASC LIMIT 2", header + "1,\"a\"\n2,\"b\"\n");
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) WHERE id > 2 ORDER BY id ASC LIMIT 2",
+        header + "3,\"c\"\n4,\"d\"\n");
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) WHERE id > 4 ORDER BY id ASC LIMIT 2", header + "5,\"e\"\n");
+    ResultSet rs = ChdbPagedResultSet.open(KeysetQuery.parse("SELECT id, v FROM t ORDER BY id"), 2, 0,
+        new String[0], new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED, engine));
+    assertEquals(List.of("1:a", "2:b", "3:c", "4:d", "5:e"), readAll(rs));
+    assertEquals(3, engine.queries.size());
+  }
+
+  @Test
+  public void pagesByOffsetWhenAKeyIsNullable() throws SQLException {
+    String header = "\"id\",\"v\"\n\"Nullable(UInt32)\",\"String\"\n";
+    PageEngine engine = new PageEngine();
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) ORDER BY id ASC LIMIT 2", header + "1,\"a\"\n2,\"b\"\n");
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) ORDER BY id ASC LIMIT 2 OFFSET 2",
+        header + "3,\"c\"\n\\N,\"d\"\n");
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) ORDER BY id ASC LIMIT 2 OFFSET 4", header + "\\N,\"e\"\n");
+    ResultSet rs = ChdbPagedResultSet.open(KeysetQuery.parse("SELECT id, v FROM t ORDER BY id"), 2, 0,
+        new String[0], new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED, engine));
+    assertEquals(List.of("1:a", "2:b", "3:c", "null:d", "null:e"), readAll(rs));
+  }
+
+  @Test
+  public void stopsAtMaxRows() throws SQLException {
+    String header = "\"id\",\"v\"\n\"UInt32\",\"String\"\n";
+    PageEngine engine = new PageEngine();
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) ORDER BY id ASC LIMIT 2", header + "1,\"a\"\n2,\"b\"\n");
+    engine.pages.put("SELECT * FROM (SELECT id, v FROM t) WHERE id > 2 ORDER BY id ASC LIMIT 1", header + "3,\"c\"\n");
+    ResultSet rs = ChdbPagedResultSet.open(KeysetQuery.parse("SELECT id, v FROM t ORDER BY id"), 2, 3,
+        new String[0], new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED, engine));
+    assertEquals(List.of("1:a", "2:b", "3:c"), readAll(rs));
+    assertEquals(2, engine.queries.size());
+  }
+}
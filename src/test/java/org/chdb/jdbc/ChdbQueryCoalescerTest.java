@@ -0,0 +1,123 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbQueryCoalescerTest {
+
+  // Answers every query with the same canned CSVWithNamesAndTypes output and records what it was asked.
+  static final class CannedEngine implements QueryContext.Engine {
+    final String csv;
+    final List<String> queries = new ArrayList<>();
+
+    CannedEngine(String csv) {
+      this.csv = csv;
+    }
+
+    @Override
+    public synchronized LocalResultV2 execute(String sql, String format, String[] settings) {
+      queries.add(sql);
+      return new LocalResultV2(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)), 0, 0, 0, null);
+    }
+  }
+
+  static ChdbQueryCoalescer coalescer(String sql, int maxBatch, QueryContext.Engine engine) throws SQLException {
+    return new ChdbQueryCoalescer(sql, 1_000_000, maxBatch, new String[0],
+        new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED, engine));
+  }
+
+  static boolean coalesces(String sql) throws SQLException {
+    return coalescer(sql, 1, new CannedEngine("")).isCoalescing();
+  }
+
+  static List<String> values(ResultSet rs) throws SQLException {
+    List<String> values = new ArrayList<>();
+    while (rs.next()) {
+      values.add(rs.getString(1));
+    }
+    return values;
+  }
+
+  @Test
+  public void batchesOnlyPlainProjectionsFilteredByAndedComparisons() throws SQLException {
+    assertTrue(coalesces("SELECT id, name AS n FROM db.t WHERE kind = 'a' AND t.id = ? ORDER BY name DESC"));
+    assertTrue(coalesces("select distinct * from `my t` where `id` = ? and v >= -1.5;"));
+    assertFalse(coalesces("SELECT count(*) FROM t WHERE id = ?"));
+    assertFalse(coalesces("SELECT sum(v) FROM t WHERE id = ? GROUP BY kind"));
+    assertFalse(coalesces("SELECT v FROM t WHERE id = ? OR kind = 'a'"));
+    assertFalse(coalesces("SELECT v FROM t WHERE id = ? LIMIT 1"));
+    assertFalse(coalesces("SELECT v FROM t WHERE id > ?"));
+    assertFalse(coalesces("SELECT v FROM t JOIN u ON t.id = u.id WHERE t.id = ?"));
+    assertFalse(coalesces("SELECT v FROM (SELECT * FROM t) WHERE id = ?"));
+    assertFalse(coalesces("WITH 1 AS x SELECT v FROM t WHERE id = ?"));
+  }
+
+  @Test
+  public void comparesKeysInTheFormOfTheirColumnType() {
+    Object one = ChdbQueryCoalescer.canonical("1", "UInt32");
+    assertEquals(one, ChdbQueryCoalescer.canonical(1.0, "UInt32"));
+    assertEquals(one, ChdbQueryCoalescer.canonical("001", "Nullable(UInt32)"));
+    assertEquals(one, ChdbQueryCoalescer.canonical(new BigDecimal("1.000"), "Decimal(9, 3)"));
+    assertEquals(ChdbQueryCoalescer.canonical("2024-02-29", "Date"),
+        ChdbQueryCoalescer.canonical(Date.valueOf("2024-02-29"), "Date"));
+    assertEquals(LocalDate.of(2024, 2, 29), ChdbQueryCoalescer.canonical("2024-02-29", "LowCardinality(Date32)"));
+    assertEquals(ChdbQueryCoalescer.canonical("2024-02-29 13:45:07.500", "DateTime64(3)"),
+        ChdbQueryCoalescer.canonical(Timestamp.valueOf("2024-02-29 13:45:07.5"), "DateTime64(3)"));
+    assertNotEquals(ChdbQueryCoalescer.canonical("1", "String"), ChdbQueryCoalescer.canonical("01", "String"));
+    assertNull(ChdbQueryCoalescer.canonical(null, "UInt32"));
+  }
+
+  @Test
+  public void rendersKeysAsLiterals() {
+    assertEquals("NULL", ChdbQueryCoalescer.literal(null));
+    assertEquals("7", ChdbQueryCoalescer.literal(7L));
+    assertEquals("'it\\'s'", ChdbQueryCoalescer.literal("it's"));
+    assertEquals("'2024-02-29 13:45:00'", ChdbQueryCoalescer.literal(Timestamp.valueOf("2024-02-29 13:45:00")));
+  }
+
+  @Test
+  public void handsEachLookupTheRowsOfItsKey() throws SQLException {
+    CannedEngine engine = new CannedEngine("\"__chdb_key\",\"v\"\n\"Nullable(UInt32)\",\"String\"\n"
+        + "1,\"a\"\n2,\"b\"\n\\N,\"n\"\n1,\"c\"\n");
+    ChdbQueryCoalescer coalescer = coalescer("SELECT v FROM t WHERE id = ?", 5, engine);
+    List<CompletableFuture<ResultSet>> lookups = new ArrayList<>();
+    for (Object key : new Object[] {1, 1.0, "002", 3, null}) {
+      lookups.add(coalescer.submit(key));
+    }
+    assertEquals(List.of("a", "c"), values(lookups.get(0).join()));
+    assertEquals(List.of("a", "c"), values(lookups.get(1).join()));
+    assertEquals(List.of("b"), values(lookups.get(2).join()));
+    assertEquals(List.of(), values(lookups.get(3).join()));
+    assertEquals(List.of(), values(lookups.get(4).join()));
+    assertEquals(List.of("SELECT id AS __chdb_key, v FROM t WHERE id IN (1, 1.0, '002', 3, NULL)"), engine.queries);
+    coalescer.close();
+  }
+
+  @Test
+  public void splitsRowsWithoutTheKeyColumn() throws SQLException {
+    ChdbQueryCoalescer.Parts parts = ChdbQueryCoalescer.split(ByteBuffer.wrap(
+        "\"__chdb_key\",\"a\",\"b\"\n\"Date\",\"String\",\"Int8\"\n\"2024-02-29\",\"x,\ny\",-1\n"
+            .getBytes(StandardCharsets.UTF_8)));
+    ChdbResultSet rs = new ChdbResultSet(new LocalResultV2(parts.rows(LocalDate.of(2024, 2, 29)), 0, 0, 0, null),
+        true);
+    assertArrayEquals(new String[] {"a", "b"}, rs.getColumnNames());
+    assertArrayEquals(new String[] {"String", "Int8"}, rs.getColumnTypes());
+    assertTrue(rs.next());
+    assertEquals("x,\ny", rs.getString(1));
+    assertEquals(-1, rs.getInt(2));
+    assertFalse(rs.next());
+  }
+}
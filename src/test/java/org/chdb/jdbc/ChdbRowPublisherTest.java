@@ -0,0 +1,88 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChdbRowPublisherTest {
+
+  static final class RecordingSubscriber implements Flow.Subscriber<RowBatch> {
+    Flow.Subscription subscription;
+    final List<Throwable> errors = new ArrayList<>();
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(RowBatch item) {
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      errors.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+
+  @Test
+  public void signalsInvalidRequestFromTheDrainLoop() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    ChdbRowPublisher publisher = new ChdbRowPublisher("SELECT 1", 10, tasks::add, new String[0],
+        QueryContext.DEFAULT);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(0);
+    subscriber.subscription.request(-1);
+    assertTrue(subscriber.errors.isEmpty());
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+    assertEquals(1, subscriber.errors.size());
+    assertTrue(subscriber.errors.get(0) instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void rejectsASecondSubscriberThroughItsExecutor() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    ChdbRowPublisher publisher = new ChdbRowPublisher("SELECT 1", 10, tasks::add, new String[0],
+        QueryContext.DEFAULT);
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber second = new RecordingSubscriber();
+    publisher.subscribe(second);
+    assertNotNull(second.subscription);
+    assertTrue(second.errors.isEmpty());
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+    assertEquals(1, second.errors.size());
+    assertTrue(second.errors.get(0) instanceof IllegalStateException);
+  }
+
+  @Test
+  public void reportsEngineTimeoutsAsTimeouts() {
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    QueryContext context = new QueryContext(MemoryAccount.GLOBAL, SlowQueryLog.DISABLED,
+        (sql, format, settings) -> new LocalResultV2(null, 0, 0, 0, "Code: 159. TIMEOUT_EXCEEDED"));
+    ChdbRowPublisher publisher = new ChdbRowPublisher("SELECT 1", 10, tasks::add, new String[0], context);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+    while (!tasks.isEmpty()) {
+      tasks.poll().run();
+    }
+    assertEquals(1, subscriber.errors.size());
+    assertTrue(subscriber.errors.get(0) instanceof SQLTimeoutException);
+  }
+}
@@ -0,0 +1,103 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedDecoderTest {
+  static final String HEADER = "\"id\",\"weight\",\"label\",\"count\"\n"
+      + "\"Int64\",\"Nullable(Float64)\",\"String\",\"Nullable(Int32)\"\n";
+
+  // Every row holds a quoted line feed and a quoted comma, so chunk boundaries regularly fall inside quotes.
+  static String row(int i) {
+    return i + "," + (i % 5 == 0 ? "\\N" : i + ".5") + ",\"k" + (i % 7) + "\nsay \"\"" + (i % 3) + "\"\", ok\","
+        + (i % 4 == 0 ? "\\N" : String.valueOf(-i)) + "\n";
+  }
+
+  static ByteBuffer result(int minBytes) {
+    StringBuilder csv = new StringBuilder(HEADER);
+    for (int i = 0; csv.length() < minBytes; i++) {
+      csv.append(row(i));
+    }
+    return ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void decodesAResultAboveTheThresholdInChunks() throws SQLException {
+    ByteBuffer buf = result(ChunkedDecoder.PARALLEL_THRESHOLD + ChunkedDecoder.CHUNK_BYTES / 3);
+    int from = HEADER.length();
+    assertTrue(ChunkedDecoder.worthwhile(buf, from));
+    ChdbResultSet rs = new ChdbResultSet(new LocalResultV2(buf, 0, 0, 0, null), true);
+    int i = 0;
+    while (rs.next()) {
+      assertEquals(i, rs.getLong(1));
+      if (i % 5 == 0) {
+        assertEquals(0.0, rs.getDouble(2));
+        assertTrue(rs.wasNull());
+      } else {
+        assertEquals(i + 0.5, rs.getDouble(2));
+      }
+      assertEquals("k" + (i % 7) + "\nsay \"" + (i % 3) + "\", ok", rs.getString(3));
+      assertEquals(i % 4 == 0 ? 0 : -i, rs.getInt(4));
+      assertEquals(i % 4 == 0, rs.wasNull());
+      i++;
+    }
+    int rows = 0;
+    for (int position = from; position < buf.limit(); rows++) {
+      position = CsvScanner.recordEnd(buf, position, buf.limit()) + 1;
+    }
+    assertEquals(rows, i);
+  }
+
+  @Test
+  public void chunksMatchTheSequentialIndex() {
+    int from = HEADER.length();
+    ByteBuffer buf = result(from + ChunkedDecoder.CHUNK_BYTES * 3);
+    String[] types = {"Int64", "Nullable(Float64)", "String", "Nullable(Int32)"};
+    ChunkedDecoder decoder = ChunkedDecoder.start(buf, from, types, ForkJoinPool.commonPool());
+    assertEquals(3, decoder.chunkCount());
+    RowIndex chunked = decoder.index();
+    RowIndex sequential = RowIndex.build(buf, from);
+    assertEquals(sequential.rowCount(), chunked.rowCount());
+    for (int row = 0; row < sequential.rowCount(); row++) {
+      assertEquals(sequential.start(row), chunked.start(row));
+      assertEquals(sequential.end(row), chunked.end(row));
+    }
+  }
+
+  @Test
+  public void closingCancelsChunksNotStarted() {
+    int from = HEADER.length();
+    ByteBuffer buf = result(from + ChunkedDecoder.CHUNK_BYTES * 3);
+    String[] types = {"Int64", "Nullable(Float64)", "String", "Nullable(Int32)"};
+    Queue<Runnable> tasks = new ArrayDeque<>();
+    ChunkedDecoder decoder = ChunkedDecoder.start(buf, from, types, tasks::add);
+    decoder.close();
+    assertEquals(3, tasks.size());
+    tasks.forEach(Runnable::run);
+    for (int k = 0; k < decoder.chunkCount(); k++) {
+      int chunk = k;
+      assertThrows(CancellationException.class, () -> decoder.chunk(chunk));
+    }
+  }
+
+  @Test
+  public void closesRightAfterChunkedDecodingStarts() throws SQLException {
+    ByteBuffer buf = result(ChunkedDecoder.PARALLEL_THRESHOLD + ChunkedDecoder.CHUNK_BYTES);
+    for (int i = 0; i < 20; i++) {
+      LocalResultV2 result = new LocalResultV2(buf.duplicate(), 0, 0, 0, null);
+      ChdbResultSet rs = new ChdbResultSet(result, true);
+      rs.close();
+      assertTrue(result.isClosed());
+      assertThrows(SQLException.class, rs::next);
+    }
+  }
+}
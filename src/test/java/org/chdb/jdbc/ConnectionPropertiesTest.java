@@ -0,0 +1,52 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionPropertiesTest {
+
+  private static Properties properties(String name, String value) {
+    Properties info = new Properties();
+    info.setProperty(name, value);
+    return info;
+  }
+
+  private static void assertRejected(String name, String value, Executable open) {
+    SQLException e = assertThrows(SQLException.class, () -> open.run(properties(name, value)));
+    assertTrue(e.getMessage().contains(name));
+    assertTrue(e.getMessage().contains(value));
+  }
+
+  private interface Executable {
+    void run(Properties info) throws Exception;
+  }
+
+  @Test
+  public void reportsMalformedValuesAsSQLException() {
+    assertRejected(WorkerPool.WORKERS, "four", WorkerPool::forConnection);
+    assertRejected(WorkerPool.WORKERS, "9999999999", WorkerPool::forConnection);
+    assertRejected(MemoryAccount.BUDGET, "1g", MemoryAccount::forConnection);
+    assertRejected(MemoryAccount.POLICY, "wait", MemoryAccount::forConnection);
+    assertRejected(SlowQueryLog.THRESHOLD, "1s", info -> SlowQueryLog.forConnection(info, null));
+    Properties info = properties(SlowQueryLog.THRESHOLD, "100");
+    info.setProperty(SlowQueryLog.CAPTURE, "plan");
+    SQLException e = assertThrows(SQLException.class, () -> SlowQueryLog.forConnection(info, null));
+    assertTrue(e.getMessage().contains(SlowQueryLog.CAPTURE));
+  }
+
+  @Test
+  public void readsWellFormedValues() throws SQLException {
+    Properties info = properties(MemoryAccount.BUDGET, " 1024 ");
+    info.setProperty(MemoryAccount.POLICY, "Reject");
+    assertEquals(1024, ConnectionProperties.getLong(info, MemoryAccount.BUDGET, 0));
+    assertEquals("reject", ConnectionProperties.getChoice(info, MemoryAccount.POLICY, "block", "block", "reject"));
+    assertEquals(7, ConnectionProperties.getInt(info, WorkerPool.WORKERS, 7));
+    assertNull(WorkerPool.forConnection(properties(WorkerPool.WORKERS, "0")));
+    MemoryAccount account = MemoryAccount.forConnection(info);
+    account.close();
+  }
+}
@@ -0,0 +1,52 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EngineSettingsTest {
+
+  @Test
+  public void takesOnlyPrefixedPropertiesAsSettings() throws SQLException {
+    Properties info = new Properties();
+    info.setProperty("chdb.setting.max_threads", "4");
+    info.setProperty("max_memory_usage", "1");
+    info.setProperty("user", "default");
+    info.setProperty(KeysetQuery.ENABLED, "true");
+    assertEquals(Map.of("max_threads", "4"), EngineSettings.fromProperties(info));
+  }
+
+  @Test
+  public void refusesOptionsTheDriverControls() {
+    for (String name : new String[] {"query", "Path", "output_format", "multiquery", "max-threads", ""}) {
+      Properties info = new Properties();
+      info.setProperty(EngineSettings.PREFIX + name, "x");
+      assertThrows(SQLException.class, () -> EngineSettings.fromProperties(info));
+      assertFalse(EngineSettings.isSettingName(name));
+    }
+    assertTrue(EngineSettings.isSettingName("max_execution_time"));
+  }
+
+  @Test
+  public void parsesSetStatements() {
+    assertEquals(Map.of("max_threads", "2", "format_csv_delimiter", ";, 'x'"),
+        EngineSettings.parseSet("  set max_threads = 2,\n format_csv_delimiter = ';, \\'x\\'' "));
+    assertEquals(Map.of("a", "it's"), EngineSettings.parseSet("SET a = 'it''s'"));
+    assertNull(EngineSettings.parseSet("SELECT 1"));
+    assertNull(EngineSettings.parseSet("SET"));
+    assertNull(EngineSettings.parseSet("SET max_threads"));
+    assertNull(EngineSettings.parseSet("SET `odd name` = 1"));
+    assertNull(EngineSettings.parseSet("SET max_threads = 1, output_format = 'JSON'"));
+    assertNull(EngineSettings.parseSet("SETTINGS max_threads = 1"));
+  }
+
+  @Test
+  public void letsStatementOverridesWin() {
+    assertArrayEquals(new String[] {"max_threads=8", "readonly=1"},
+        EngineSettings.toArguments(Map.of("max_threads", "4"), Map.of("max_threads", "8", "readonly", "1")));
+  }
+}
@@ -0,0 +1,52 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetQueryTest {
+
+  @Test
+  public void pagesOnTheOrderByColumns() {
+    KeysetQuery query = KeysetQuery.parse("SELECT a, b FROM t ORDER BY a, b;");
+    assertArrayEquals(new Object[] {"a", "b"}, query.getKeys());
+    assertEquals("SELECT * FROM (SELECT a, b FROM t) ORDER BY a ASC, b ASC LIMIT 10", query.pageSql(null, 10));
+    assertEquals("SELECT * FROM (SELECT a, b FROM t) WHERE (a, b) > (1, 'x') ORDER BY a ASC, b ASC LIMIT 10",
+        query.pageSql(new String[] {"1", "'x'"}, 10));
+    assertEquals("SELECT * FROM (SELECT a, b FROM t) ORDER BY a ASC, b ASC LIMIT 10 OFFSET 20",
+        query.offsetPageSql(20, 10));
+  }
+
+  @Test
+  public void keepsADirectionSharedByEveryKey() {
+    KeysetQuery query = KeysetQuery.parse("SELECT * FROM t ORDER BY a DESC, `b c` DESC");
+    assertArrayEquals(new Object[] {"a", "`b c`"}, query.getKeys());
+    assertEquals("SELECT * FROM (SELECT * FROM t) WHERE (a, `b c`) < (1, 2) ORDER BY a DESC, `b c` DESC LIMIT 5",
+        query.pageSql(new String[] {"1", "2"}, 5));
+  }
+
+  @Test
+  public void rejectsMixedDirectionsAndExpressions() {
+    assertNull(KeysetQuery.parse("SELECT * FROM t ORDER BY a, b DESC"));
+    assertNull(KeysetQuery.parse("SELECT * FROM t ORDER BY a DESC, b"));
+    assertNull(KeysetQuery.parse("SELECT * FROM t ORDER BY lower(a)"));
+    assertNull(KeysetQuery.parse("SELECT * FROM t"));
+    assertNull(KeysetQuery.parse("INSERT INTO t SELECT * FROM s ORDER BY a"));
+  }
+
+  @Test
+  public void rendersLiteralsByType() {
+    assertEquals("42", KeysetQuery.literal("42", "Nullable(UInt64)"));
+    assertEquals("1.5", KeysetQuery.literal("1.5", "LowCardinality(Float64)"));
+    assertEquals("'it\\'s \\\\ here'", KeysetQuery.literal("it's \\ here", "String"));
+    assertEquals("'2024-01-02'", KeysetQuery.literal("2024-01-02", "Date"));
+    assertEquals("NULL", KeysetQuery.literal(null, "Nullable(String)"));
+  }
+
+  @Test
+  public void limitsOnlySelects() {
+    assertEquals("SELECT * FROM (SELECT 1) LIMIT 3", KeysetQuery.limit("SELECT 1;", 3));
+    assertEquals("INSERT INTO t VALUES (1)", KeysetQuery.limit("INSERT INTO t VALUES (1)", 3));
+    assertEquals("SELECT 1", KeysetQuery.limit("SELECT 1", 0));
+  }
+}
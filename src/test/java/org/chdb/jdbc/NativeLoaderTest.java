@@ -0,0 +1,92 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NativeLoaderTest {
+  // Stand-in libraries bundled with the tests under org/chdb/jdbc/native/test-platform.
+  static final String PLATFORM = "test-platform";
+
+  static String platform(String os, String arch) {
+    String savedOs = System.getProperty("os.name");
+    String savedArch = System.getProperty("os.arch");
+    try {
+      System.setProperty("os.name", os);
+      System.setProperty("os.arch", arch);
+      return NativeLoader.platform();
+    } finally {
+      System.setProperty("os.name", savedOs);
+      System.setProperty("os.arch", savedArch);
+    }
+  }
+
+  static Path extractInto(Path cache) {
+    String saved = System.getProperty("chdb.native.cache");
+    try {
+      System.setProperty("chdb.native.cache", cache.toString());
+      return NativeLoader.extract(PLATFORM);
+    } finally {
+      if (saved == null) {
+        System.clearProperty("chdb.native.cache");
+      } else {
+        System.setProperty("chdb.native.cache", saved);
+      }
+    }
+  }
+
+  static String read(Path file) throws IOException {
+    return Files.readString(file, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void namesSupportedPlatforms() {
+    assertEquals("linux-x86_64", platform("Linux", "amd64"));
+    assertEquals("linux-x86_64", platform("linux", "x86_64"));
+    assertEquals("linux-aarch64", platform("Linux", "aarch64"));
+    assertNull(platform("Linux", "riscv64"));
+    assertNull(platform("Mac OS X", "aarch64"));
+  }
+
+  @Test
+  public void hashesTheBundledContent() throws IOException {
+    String hash = NativeLoader.contentHash(PLATFORM);
+    assertTrue(hash.matches("[0-9a-f]{16}"));
+    assertEquals(hash, NativeLoader.contentHash(PLATFORM));
+  }
+
+  @Test
+  public void extractsOnceIntoADirectoryNamedAfterTheContent() throws IOException {
+    Path cache = Files.createTempDirectory("chdb-native-test");
+    Path directory = extractInto(cache);
+    assertEquals(cache.resolve(PLATFORM + "-" + NativeLoader.contentHash(PLATFORM)), directory);
+    assertEquals("stand-in for libchdb\n", read(directory.resolve("libchdb.so")));
+    assertEquals("stand-in for libchdbjni\n", read(directory.resolve("libchdbjni.so")));
+    long modified = Files.getLastModifiedTime(directory.resolve("libchdb.so")).toMillis();
+    assertEquals(directory, extractInto(cache));
+    assertEquals(modified, Files.getLastModifiedTime(directory.resolve("libchdb.so")).toMillis());
+    try (var entries = Files.list(cache)) {
+      assertEquals(1, entries.count());
+    }
+  }
+
+  @Test
+  public void replacesAnUnverifiedOrTruncatedCopy() throws IOException {
+    Path cache = Files.createTempDirectory("chdb-native-test");
+    Path directory = extractInto(cache);
+    Path library = directory.resolve("libchdbjni.so");
+    Files.delete(directory.resolve(".verified"));
+    Files.writeString(library, "stand-in for libchdbJNI\n", StandardCharsets.UTF_8);
+    assertEquals(directory, extractInto(cache));
+    assertEquals("stand-in for libchdbjni\n", read(library));
+    Files.writeString(library, "stand-in", StandardCharsets.UTF_8);
+    assertEquals(directory, extractInto(cache));
+    assertEquals("stand-in for libchdbjni\n", read(library));
+    assertTrue(Files.exists(directory.resolve(".verified")));
+  }
+}
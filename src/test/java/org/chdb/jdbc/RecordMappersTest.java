@@ -0,0 +1,34 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordMappersTest {
+  record Pair(long a, long b) {
+  }
+
+  @Test
+  public void keysMappersOnTheColumnNamesThemselves() throws SQLException {
+    assertSame(RecordMappers.forType(Pair.class, new String[] {"a", "b"}),
+        RecordMappers.forType(Pair.class, new String[] {"a", "b"}));
+    assertThrows(SQLException.class, () -> RecordMappers.forType(Pair.class, new String[] {"a,b"}));
+  }
+
+  @Test
+  public void stopsCachingPastTheSchemaLimit() throws SQLException {
+    for (int i = 0; i < RecordMappers.MAX_SCHEMAS; i++) {
+      RecordMappers.forType(Pair.class, new String[] {"a", "b", "extra" + i});
+    }
+    String[] overflow = {"b", "a", "other"};
+    assertNotSame(RecordMappers.forType(Pair.class, overflow), RecordMappers.forType(Pair.class, overflow));
+  }
+
+  @Test
+  public void reportsInaccessibleTargetsAsSqlExceptions() {
+    SQLException e = assertThrows(SQLException.class, () -> RecordMappers.forType(Math.class, new String[] {"x"}));
+    assertTrue(e.getMessage().contains("java.lang.Math"));
+  }
+}
@@ -0,0 +1,68 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RowDecodersTest {
+
+  @Test
+  public void decodesEachColumnKindIntoItsArray() {
+    byte[] kinds = {ChunkedDecoder.LONG, ChunkedDecoder.LONG, ChunkedDecoder.DOUBLE, ChunkedDecoder.STRING};
+    boolean[] nullable = {false, true, true, false};
+    RowDecoder decoder = RowDecoders.forSchema(kinds, nullable);
+    assertSame(decoder, RowDecoders.forSchema(kinds.clone(), nullable.clone()));
+    assertTrue(decoder.getClass().isHidden());
+
+    ByteBuffer buf = ByteBuffer.wrap("-42,\\N,2.5,\"a\nb\"\n7,9,\\N,plain\n".getBytes(StandardCharsets.UTF_8));
+    Object[] values = {new long[2], new long[2], new double[2], new String[2]};
+    boolean[][] nulls = {null, new boolean[2], new boolean[2], null};
+    StringDictionary[] dictionaries = {null, null, null, StringDictionary.forType("String")};
+    int[] bounds = new int[8];
+    int start = 0;
+    for (int row = 0; row < 2; row++) {
+      int end = CsvScanner.recordEnd(buf, start, buf.limit());
+      int fields = CsvScanner.splitFields(buf, start, end, bounds);
+      decoder.decodeRow(buf, bounds, fields, values, nulls, dictionaries, row);
+      start = end + 1;
+    }
+    assertArrayEquals(new long[] {-42, 7}, (long[]) values[0]);
+    assertArrayEquals(new long[] {0, 9}, (long[]) values[1]);
+    assertArrayEquals(new boolean[] {true, false}, nulls[1]);
+    assertArrayEquals(new double[] {2.5, 0}, (double[]) values[2]);
+    assertArrayEquals(new boolean[] {false, true}, nulls[2]);
+    assertArrayEquals(new String[] {"a\nb", "plain"}, (String[]) values[3]);
+  }
+
+  @Test
+  public void leavesColumnsMissingFromAShortRecordUntouched() {
+    RowDecoder decoder = RowDecoders.forSchema(new byte[] {ChunkedDecoder.LONG, ChunkedDecoder.DOUBLE},
+        new boolean[] {false, false});
+    ByteBuffer buf = ByteBuffer.wrap("5".getBytes(StandardCharsets.UTF_8));
+    Object[] values = {new long[1], new double[] {-1}};
+    int[] bounds = new int[4];
+    int fields = CsvScanner.splitFields(buf, 0, buf.limit(), bounds);
+    decoder.decodeRow(buf, bounds, fields, values, new boolean[2][], new StringDictionary[2], 0);
+    assertArrayEquals(new long[] {5}, (long[]) values[0]);
+    assertArrayEquals(new double[] {-1}, (double[]) values[1]);
+  }
+
+  @Test
+  public void parsesFloatCellsInPlaceIncludingEngineSpellings() {
+    byte[] kinds = {ChunkedDecoder.DOUBLE, ChunkedDecoder.DOUBLE, ChunkedDecoder.DOUBLE, ChunkedDecoder.DOUBLE};
+    RowDecoder decoder = RowDecoders.forSchema(kinds, new boolean[] {false, true, false, true});
+    ByteBuffer buf = ByteBuffer.wrap("-0.125,1e3,inf,\"nan\"".getBytes(StandardCharsets.UTF_8));
+    Object[] values = {new double[1], new double[1], new double[1], new double[1]};
+    int[] bounds = new int[8];
+    int fields = CsvScanner.splitFields(buf, 0, buf.limit(), bounds);
+    decoder.decodeRow(buf, bounds, fields, values, new boolean[][] {null, new boolean[1], null, new boolean[1]},
+        new StringDictionary[4], 0);
+    assertEquals(-0.125, ((double[]) values[0])[0]);
+    assertEquals(1000.0, ((double[]) values[1])[0]);
+    assertEquals(Double.POSITIVE_INFINITY, ((double[]) values[2])[0]);
+    assertTrue(Double.isNaN(((double[]) values[3])[0]));
+  }
+}
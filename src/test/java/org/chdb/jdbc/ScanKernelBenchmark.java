@@ -0,0 +1,76 @@
+package org.chdb.jdbc;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar versus vector scanning over a CSV result shaped like engine output. The vector kernel needs
+ * {@code --add-modules jdk.incubator.vector}, which the benchmark profile passes to the forked JVMs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class ScanKernelBenchmark {
+  @Param({"scalar", "vector"})
+  public String kernel;
+
+  @Param({"16", "256"})
+  public int textLength;
+
+  private ScanKernel scanner;
+  private ByteBuffer buf;
+  private int[] bounds;
+
+  @Setup
+  public void setUp() {
+    scanner = "vector".equals(kernel) ? VectorScanKernel.create() : ScalarScanKernel.INSTANCE;
+    if (scanner == null) {
+      throw new IllegalStateException("Vector kernel is not supported on this platform");
+    }
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < textLength; i++) {
+      text.append((char) ('a' + i % 26));
+    }
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; csv.length() < (32 << 20); i++) {
+      csv.append(i).append(",\"").append(text).append(" \"\"").append(i).append("\"\"\",")
+          .append(i).append(".25,\"2024-01-01 00:00:00\"\n");
+    }
+    byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+    buf = ByteBuffer.allocateDirect(bytes.length);
+    buf.put(bytes).flip();
+    bounds = new int[16];
+  }
+
+  @Benchmark
+  public int recordIndex() {
+    int rows = 0;
+    int limit = buf.limit();
+    for (int position = 0; position < limit; rows++) {
+      position = scanner.recordEnd(buf, position, limit) + 1;
+    }
+    return rows;
+  }
+
+  @Benchmark
+  public void recordAndFieldSplit(Blackhole bh) {
+    int limit = buf.limit();
+    for (int position = 0; position < limit; ) {
+      int end = scanner.recordEnd(buf, position, limit);
+      bh.consume(scanner.splitFields(buf, position, end, bounds));
+      position = end + 1;
+    }
+  }
+
+  @Benchmark
+  public int quoteCount() {
+    return scanner.count(buf, 0, buf.limit(), CsvScanner.QUOTE);
+  }
+}
@@ -0,0 +1,78 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlScriptTest {
+
+  static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String nonce(SqlScript script) {
+    Matcher m = Pattern.compile("SELECT '([0-9a-f]+):0'").matcher(script.framed());
+    assertTrue(m.find());
+    return m.group(1);
+  }
+
+  @Test
+  public void splitsAtSemicolonsOutsideQuotes() {
+    assertEquals(List.of("SELECT 'a;b'", "SELECT \"c;\", `d;e`", "SELECT 'it\\'s;'"),
+        SqlScript.split("SELECT 'a;b'; SELECT \"c;\", `d;e`;;\n SELECT 'it\\'s;' ;"));
+  }
+
+  @Test
+  public void ignoresSemicolonsInCommentsAndDropsCommentOnlyTails() {
+    assertEquals(List.of("SELECT 1 -- one; two", "SELECT /* ; */ 2", "# note;\nSELECT 3"),
+        SqlScript.split("SELECT 1 -- one; two\n; SELECT /* ; */ 2; # note;\nSELECT 3; -- done;\n/* end */"));
+    assertEquals(List.of(), SqlScript.split(" ; -- nothing\n"));
+  }
+
+  @Test
+  public void framesEveryStatementWithItsMarker() {
+    SqlScript script = SqlScript.parse("SELECT 1 -- trailing comment; SELECT 2");
+    assertEquals(1, script.getStatements().size());
+    String nonce = nonce(script);
+    assertEquals("SELECT 1 -- trailing comment; SELECT 2\n;\nSELECT '" + nonce + ":0' FORMAT TSVRaw;\n",
+        script.framed());
+    assertNotEquals(nonce, nonce(SqlScript.parse("SELECT 1")));
+  }
+
+  @Test
+  public void cutsOutputAtMarkerLinesOnly() throws SQLException {
+    SqlScript script = SqlScript.parse("SELECT x FROM t; INSERT INTO t VALUES (1); SELECT y FROM t");
+    String nonce = nonce(script);
+    // The first statement's output mentions a marker inside a row, which must not end its part.
+    String first = "\"" + nonce + ":0\"\n1\n";
+    String output = first + nonce + ":0\n" + nonce + ":1\n" + "2\n" + nonce + ":2\n";
+    int[] parts = script.parts(bytes(output));
+    int second = first.length() + nonce.length() + 3;
+    assertArrayEquals(new int[] {0, first.length(), second, second, second + nonce.length() + 3,
+        output.length() - nonce.length() - 3}, parts);
+  }
+
+  @Test
+  public void rejectsOutputMissingAMarker() {
+    SqlScript script = SqlScript.parse("SELECT 1; SELECT 2");
+    ByteBuffer output = bytes("1\n" + nonce(script) + ":0\n2\n");
+    assertThrows(SQLException.class, () -> script.parts(output));
+  }
+
+  @Test
+  public void partsCountAsClosedOnceTheirScriptResultIs() {
+    LocalResultV2 script = new LocalResultV2(bytes("1\nmarker\n2\n"), 0, 0, 0, null);
+    LocalResultV2 part = LocalResultV2.part(script, 9, 11);
+    assertEquals(2, part.getBuf().remaining());
+    assertFalse(part.isClosed());
+    script.close();
+    assertTrue(part.isClosed());
+  }
+}
@@ -0,0 +1,38 @@
+package org.chdb.jdbc;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the first query in a fresh JVM, cold or after {@link ChdbDriver#warmUp}. Each fork measures one
+ * first query, so the number of forks is the number of samples.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 10, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+  @Param({"cold", "warm"})
+  public String start;
+
+  @Setup
+  public void setUp() {
+    if ("warm".equals(start)) {
+      Properties options = new Properties();
+      options.setProperty(ChdbDriver.WARM_UP_QUERIES, "SELECT name FROM system.functions LIMIT 1");
+      ChdbDriver.warmUp(options).join();
+    }
+  }
+
+  @Benchmark
+  public LocalResultV2 firstQuery() throws Exception {
+    try (LocalResultV2 result = ChdbStatement.query("SELECT number, toString(number) FROM numbers(1000)",
+        new String[0], QueryContext.DEFAULT)) {
+      return result;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringDictionaryTest {
+
+  static ByteBuffer bytes(String text) {
+    return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void returnsOneInstancePerRepeatedValue() {
+    StringDictionary dictionary = StringDictionary.forType("String");
+    ByteBuffer buf = bytes("\"say \"\"hi\"\"\",plain,\"say \"\"hi\"\"\",\\N");
+    String first = dictionary.decode(buf, 0, 12);
+    assertEquals("say \"hi\"", first);
+    assertEquals("plain", dictionary.decode(buf, 13, 18));
+    assertSame(first, dictionary.decode(buf, 19, 31));
+    assertNull(dictionary.decode(buf, 32, 34));
+  }
+
+  @Test
+  public void keepsEntriesAsTheTableGrows() {
+    StringDictionary dictionary = StringDictionary.forType("LowCardinality(String)");
+    String[] first = new String[1500];
+    for (int i = 0; i < first.length; i++) {
+      ByteBuffer value = bytes("key-" + i);
+      first[i] = dictionary.decode(value, 0, value.limit());
+    }
+    for (int i = 0; i < first.length; i++) {
+      ByteBuffer value = bytes("key-" + i);
+      assertSame(first[i], dictionary.decode(value, 0, value.limit()));
+    }
+  }
+
+  @Test
+  public void switchesOffForColumnsThatRarelyRepeat() {
+    StringDictionary adaptive = StringDictionary.forType("Nullable(String)");
+    StringDictionary fixed = StringDictionary.forType("LowCardinality(String)");
+    for (int i = 0; i < 4096; i++) {
+      ByteBuffer unique = bytes("v" + i);
+      adaptive.decode(unique, 0, unique.limit());
+      fixed.decode(unique, 0, unique.limit());
+    }
+    ByteBuffer buf = bytes("v1,v1");
+    assertNotSame(adaptive.decode(buf, 0, 2), adaptive.decode(buf, 3, 5));
+    assertSame(fixed.decode(buf, 0, 2), fixed.decode(buf, 3, 5));
+  }
+
+  @Test
+  public void typedResultsShareRepeatedCells() throws SQLException {
+    ByteBuffer buf = bytes("\"name\",\"n\"\n\"String\",\"Nullable(Int32)\"\n\"a\nb\",1\n\"a\nb\",\\N\n");
+    ChdbResultSet rs = new ChdbResultSet(new LocalResultV2(buf, 0, 0, 0, null), true);
+    assertTrue(rs.next());
+    String first = rs.getString(1);
+    assertEquals("a\nb", first);
+    assertTrue(rs.next());
+    assertSame(first, rs.getString(1));
+    assertNull(rs.getString(2));
+    assertTrue(rs.wasNull());
+    assertFalse(rs.next());
+  }
+}
@@ -0,0 +1,59 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VectorScanKernelTest {
+  static final byte[] ALPHABET = {'a', 'b', ',', '"', '\n'};
+
+  static ByteBuffer random(Random random, int length, boolean direct) {
+    ByteBuffer buf = direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    for (int i = 0; i < length; i++) {
+      buf.put(i, ALPHABET[random.nextInt(ALPHABET.length)]);
+    }
+    return buf;
+  }
+
+  @Test
+  public void matchesTheScalarKernel() {
+    ScanKernel vector = VectorScanKernel.create();
+    assertNotNull(vector);
+    ScanKernel scalar = ScalarScanKernel.INSTANCE;
+    Random random = new Random(42);
+    for (int round = 0; round < 2_000; round++) {
+      ByteBuffer buf = random(random, random.nextInt(300), round % 2 == 0);
+      int base = buf.limit() == 0 ? 0 : random.nextInt(Math.min(buf.limit(), 8));
+      buf.position(base);
+      int from = base + random.nextInt(buf.limit() - base + 1);
+      int to = from + random.nextInt(buf.limit() - from + 1);
+      assertEquals(scalar.indexOf(buf, from, to, CsvScanner.QUOTE), vector.indexOf(buf, from, to, CsvScanner.QUOTE));
+      assertEquals(scalar.indexOfEither(buf, from, to, CsvScanner.COMMA, CsvScanner.LF),
+          vector.indexOfEither(buf, from, to, CsvScanner.COMMA, CsvScanner.LF));
+      assertEquals(scalar.count(buf, from, to, CsvScanner.QUOTE), vector.count(buf, from, to, CsvScanner.QUOTE));
+      assertEquals(scalar.recordEnd(buf, from, to), vector.recordEnd(buf, from, to));
+      int[] expected = new int[512];
+      int[] actual = new int[512];
+      int fields = scalar.splitFields(buf, from, to, expected);
+      assertEquals(fields, vector.splitFields(buf, from, to, actual));
+      assertArrayEquals(Arrays.copyOf(expected, fields * 2), Arrays.copyOf(actual, fields * 2));
+    }
+  }
+
+  @Test
+  public void rescansABufferAfterItsPositionMoves() {
+    ScanKernel vector = VectorScanKernel.create();
+    ByteBuffer buf = random(new Random(7), 200, false);
+    int expected = ScalarScanKernel.INSTANCE.indexOf(buf, 150, 200, CsvScanner.LF);
+    assertEquals(expected, vector.indexOf(buf, 150, 200, CsvScanner.LF));
+    buf.position(100);
+    assertEquals(expected, vector.indexOf(buf, 150, 200, CsvScanner.LF));
+    buf.limit(180);
+    assertEquals(ScalarScanKernel.INSTANCE.indexOf(buf, 150, 180, CsvScanner.LF),
+        vector.indexOf(buf, 150, 180, CsvScanner.LF));
+  }
+}
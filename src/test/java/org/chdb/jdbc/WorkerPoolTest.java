@@ -0,0 +1,125 @@
+package org.chdb.jdbc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkerPoolTest {
+
+  // A worker whose engine answers every query with its own text; FAIL throws and ERROR is an engine error.
+  public static final class EchoWorker {
+    public static void main(String[] args) throws IOException {
+      ChdbWorker.serve(args[0], Paths.get(args[1]), (sql, format, settings) -> {
+        if (sql.equals("FAIL")) {
+          throw new IllegalStateException("engine blew up");
+        }
+        if (sql.equals("ERROR")) {
+          return new LocalResultV2(null, 0, 0, 0, "Code: 62. Syntax error");
+        }
+        return new LocalResultV2(ByteBuffer.wrap(sql.getBytes(StandardCharsets.UTF_8)), 1, sql.length(), 0, null);
+      });
+      System.exit(0);
+    }
+  }
+
+  private static WorkerPool pool(int size, long healthCheckMillis) throws IOException, SQLException {
+    WorkerPool pool = new WorkerPool(size, WorkerPool.command("", EchoWorker.class.getName()),
+        Paths.get(System.getProperty("java.io.tmpdir")), healthCheckMillis);
+    pool.open();
+    return pool;
+  }
+
+  private static String text(LocalResultV2 result) {
+    return StandardCharsets.UTF_8.decode(result.getBuf().duplicate()).toString();
+  }
+
+  private static long files(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void runsQueriesInPrivateDirectory() throws Exception {
+    WorkerPool pool = pool(2, 60_000);
+    try {
+      assertEquals("rwx------", PosixFilePermissions.toString(Files.getPosixFilePermissions(pool.directory())));
+      for (int i = 0; i < 10; i++) {
+        try (LocalResultV2 result = pool.execute("SELECT " + i, "CSV", new String[0])) {
+          assertEquals("SELECT " + i, text(result));
+          assertEquals(1, result.getRowsRead());
+        }
+      }
+      assertEquals("", text(pool.execute("", "CSV", new String[0])));
+      assertEquals(0, files(pool.directory()));
+    } finally {
+      pool.close();
+    }
+    assertFalse(Files.exists(pool.directory()));
+  }
+
+  @Test
+  public void answersEngineErrorsAndThrowables() throws Exception {
+    WorkerPool pool = pool(1, 60_000);
+    try {
+      assertEquals("Code: 62. Syntax error", pool.execute("ERROR", "CSV", new String[0]).getErrorMessage());
+      String message = pool.execute("FAIL", "CSV", new String[0]).getErrorMessage();
+      assertTrue(message.contains("engine blew up"));
+      assertEquals("SELECT 1", text(pool.execute("SELECT 1", "CSV", new String[0])));
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void mapsOnlyResultFilesOfThePool() throws Exception {
+    WorkerPool pool = pool(1, 60_000);
+    Path outside = Files.createTempFile("chdb-", ".result");
+    try {
+      assertThrows(IOException.class, () -> pool.map(outside, 1, 0, 0, 0));
+      assertThrows(IOException.class, () -> pool.map(pool.directory().resolve("..").resolve(outside.getFileName()),
+          1, 0, 0, 0));
+      assertTrue(Files.exists(outside));
+      Path inside = Files.write(pool.directory().resolve("x.result"), new byte[] {'a', 'b'});
+      try (LocalResultV2 result = pool.map(inside, 2, 0, 0, 0)) {
+        assertEquals("ab", text(result));
+      }
+      assertFalse(Files.exists(inside));
+    } finally {
+      Files.deleteIfExists(outside);
+      pool.close();
+    }
+  }
+
+  @Test
+  public void replacesWorkerThatDied() throws Exception {
+    WorkerPool pool = pool(1, 100);
+    try {
+      assertEquals("before", text(pool.execute("before", "CSV", new String[0])));
+      List<ProcessHandle> children = ProcessHandle.current().children().toList();
+      children.forEach(ProcessHandle::destroyForcibly);
+      String after = null;
+      for (long deadline = System.nanoTime() + 60_000_000_000L; after == null && System.nanoTime() < deadline; ) {
+        try {
+          after = text(pool.execute("after", "CSV", new String[0]));
+        } catch (SQLException e) {
+          Thread.sleep(50);
+        }
+      }
+      assertEquals("after", after);
+    } finally {
+      pool.close();
+    }
+  }
+}